@@ -7,9 +7,10 @@ import android.util.AttributeSet;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.RelativeLayout;
-import android.widget.TextView;
 
 import com.quarkworks.dynamicpageradapter_android.R;
+import com.quarkworks.dynamicviewpager.TextLayoutCache;
+import com.quarkworks.dynamicviewpager.TextLayoutView;
 
 /**
  * @author jacobamuchow@gmail.com (Jacob Muchow)
@@ -19,7 +20,7 @@ public class GreenCardView extends RelativeLayout {
 
     private int position = 0;
 
-    private TextView textView;
+    private TextLayoutView textView;
 
     @Nullable
     private PagerViewCallbacks pagerViewCallbacks;
@@ -43,7 +44,7 @@ public class GreenCardView extends RelativeLayout {
         LayoutInflater.from(getContext()).inflate(R.layout.pager_card_view, this);
 
         View cardContainer = findViewById(R.id.pager_card_view_card_container);
-        textView = (TextView) findViewById(R.id.pager_card_view_text);
+        textView = (TextLayoutView) findViewById(R.id.pager_card_view_text);
         View dismissButton = findViewById(R.id.pager_card_view_dismiss_button);
 
         dismissButton.setOnClickListener(new OnClickListener() {
@@ -58,9 +59,13 @@ public class GreenCardView extends RelativeLayout {
         cardContainer.setBackgroundColor(Color.GREEN);
     }
 
-    public void setViewData(int position) {
+    public void setViewData(int position, TextLayoutCache textLayoutCache) {
         this.position = position;
-        textView.setText(String.valueOf(position));
+        textView.setText(textLayoutCache, position, getText(position));
+    }
+
+    public static CharSequence getText(int position) {
+        return String.valueOf(position);
     }
 
     public int getPosition() {
@@ -1,9 +1,16 @@
 package com.quarkworks.dynamicpageradapter_android.multi_view_type;
 
+import android.content.Context;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.support.annotation.Nullable;
+import android.text.Layout;
+import android.text.TextPaint;
 import android.view.View;
 import android.view.ViewGroup;
 
 import com.quarkworks.dynamicviewpager.DynamicPagerAdapter;
+import com.quarkworks.dynamicviewpager.TextLayoutCache;
 
 import java.util.ArrayList;
 
@@ -21,6 +28,11 @@ public class PagerAdapter extends DynamicPagerAdapter {
 
     private ArrayList<Integer> values = new ArrayList<>();
 
+    /**
+     * Created with the first page, since it needs a Context for the text size.
+     */
+    @Nullable private TextLayoutCache textLayoutCache;
+
     public PagerAdapter() {
         for(int i = 0; i < 30; i++) {
             values.add(i);
@@ -39,6 +51,10 @@ public class PagerAdapter extends DynamicPagerAdapter {
 
     @Override
     public ViewHolder onCreateViewHolder(ViewGroup container, int position, int viewType) {
+        if(textLayoutCache == null) {
+            textLayoutCache = createTextLayoutCache(container.getContext());
+        }
+
         final View view;
 
         if (viewType == ViewTypes.BLUE) {
@@ -81,13 +97,13 @@ public class PagerAdapter extends DynamicPagerAdapter {
         int value = values.get(position);
 
         if (viewHolder.viewType == ViewTypes.BLUE) {
-            ((BlueCardView) viewHolder.view).setViewData(value);
+            ((BlueCardView) viewHolder.view).setViewData(value, textLayoutCache);
 
         } else if (viewHolder.viewType == ViewTypes.GREEN) {
-            ((GreenCardView) viewHolder.view).setViewData(value);
+            ((GreenCardView) viewHolder.view).setViewData(value, textLayoutCache);
 
         } else {
-            ((RedCardView) viewHolder.view).setViewData(value);
+            ((RedCardView) viewHolder.view).setViewData(value, textLayoutCache);
         }
     }
 
@@ -96,8 +112,40 @@ public class PagerAdapter extends DynamicPagerAdapter {
         return values.get(position) % 3;
     }
 
+    /**
+     * Lays out the text of the pages around the current one in the background, so binding them
+     * doesn't have to.
+     */
+    @Override
+    public void onPrefetchPosition(int position, int distance) {
+        if(textLayoutCache != null) {
+            int value = values.get(position);
+            textLayoutCache.precompute(value, RedCardView.getText(value), distance);
+        }
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return values.get(position);
+    }
+
     @Override
     public int getCount() {
         return values.size();
     }
+
+    private static TextLayoutCache createTextLayoutCache(Context context) {
+        TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTextSize(24 * context.getResources().getDisplayMetrics().scaledDensity);
+        paint.setTypeface(Typeface.DEFAULT_BOLD);
+
+        TextLayoutCache textLayoutCache = new TextLayoutCache(paint);
+        textLayoutCache.setAlignment(Layout.Alignment.ALIGN_CENTER);
+        return textLayoutCache;
+    }
 }
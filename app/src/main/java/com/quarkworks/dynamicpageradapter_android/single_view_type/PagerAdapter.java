@@ -1,9 +1,16 @@
 package com.quarkworks.dynamicpageradapter_android.single_view_type;
 
+import android.content.Context;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.support.annotation.Nullable;
+import android.text.Layout;
+import android.text.TextPaint;
 import android.view.View;
 import android.view.ViewGroup;
 
 import com.quarkworks.dynamicviewpager.DynamicPagerAdapter;
+import com.quarkworks.dynamicviewpager.TextLayoutCache;
 
 import java.util.ArrayList;
 
@@ -15,6 +22,11 @@ public class PagerAdapter extends DynamicPagerAdapter {
 
     private ArrayList<Integer> values = new ArrayList<>();
 
+    /**
+     * Created with the first page, since it needs a Context for the text size.
+     */
+    @Nullable private TextLayoutCache textLayoutCache;
+
     public PagerAdapter() {
         for(int i = 0; i < 30; i++) {
             values.add(i);
@@ -33,6 +45,10 @@ public class PagerAdapter extends DynamicPagerAdapter {
 
     @Override
     public ViewHolder onCreateViewHolder(ViewGroup container, int position, int viewType) {
+        if(textLayoutCache == null) {
+            textLayoutCache = createTextLayoutCache(container.getContext());
+        }
+
         final PagerCardView pagerCardView = new PagerCardView(container.getContext());
 
         pagerCardView.setPagerViewCallbacks(new PagerCardView.PagerViewCallbacks() {
@@ -49,11 +65,43 @@ public class PagerAdapter extends DynamicPagerAdapter {
     public void onBindViewHolder(ViewHolder viewHolder, int position) {
         PagerCardView pagerCardView = (PagerCardView) viewHolder.view;
 
-        pagerCardView.setViewData(values.get(position));
+        pagerCardView.setViewData(values.get(position), textLayoutCache);
+    }
+
+    /**
+     * Lays out the text of the pages around the current one in the background, so binding them
+     * doesn't have to.
+     */
+    @Override
+    public void onPrefetchPosition(int position, int distance) {
+        if(textLayoutCache != null) {
+            int value = values.get(position);
+            textLayoutCache.precompute(value, PagerCardView.getText(value), distance);
+        }
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return values.get(position);
     }
 
     @Override
     public int getCount() {
         return values.size();
     }
+
+    private static TextLayoutCache createTextLayoutCache(Context context) {
+        TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTextSize(24 * context.getResources().getDisplayMetrics().scaledDensity);
+        paint.setTypeface(Typeface.DEFAULT_BOLD);
+
+        TextLayoutCache textLayoutCache = new TextLayoutCache(paint);
+        textLayoutCache.setAlignment(Layout.Alignment.ALIGN_CENTER);
+        return textLayoutCache;
+    }
 }
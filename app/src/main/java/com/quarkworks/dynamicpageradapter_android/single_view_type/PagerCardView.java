@@ -6,9 +6,10 @@ import android.util.AttributeSet;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.RelativeLayout;
-import android.widget.TextView;
 
 import com.quarkworks.dynamicpageradapter_android.R;
+import com.quarkworks.dynamicviewpager.TextLayoutCache;
+import com.quarkworks.dynamicviewpager.TextLayoutView;
 
 /**
  * @author jacobamuchow@gmail.com (Jacob Muchow)
@@ -18,7 +19,7 @@ public class PagerCardView extends RelativeLayout {
 
     private int position = 0;
 
-    private TextView textView;
+    private TextLayoutView textView;
 
     @Nullable private PagerViewCallbacks pagerViewCallbacks;
 
@@ -40,7 +41,7 @@ public class PagerCardView extends RelativeLayout {
     private void initialize() {
         LayoutInflater.from(getContext()).inflate(R.layout.pager_card_view, this);
 
-        textView = (TextView) findViewById(R.id.pager_card_view_text);
+        textView = (TextLayoutView) findViewById(R.id.pager_card_view_text);
         View dismissButton = findViewById(R.id.pager_card_view_dismiss_button);
 
         dismissButton.setOnClickListener(new OnClickListener() {
@@ -53,9 +54,13 @@ public class PagerCardView extends RelativeLayout {
         });
     }
 
-    public void setViewData(int position) {
+    public void setViewData(int position, TextLayoutCache textLayoutCache) {
         this.position = position;
-        textView.setText(String.valueOf(position));
+        textView.setText(textLayoutCache, position, getText(position));
+    }
+
+    public static CharSequence getText(int position) {
+        return String.valueOf(position);
     }
 
     public int getPosition() {
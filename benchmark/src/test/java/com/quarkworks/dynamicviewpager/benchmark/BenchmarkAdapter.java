@@ -0,0 +1,96 @@
+package com.quarkworks.dynamicviewpager.benchmark;
+
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import com.quarkworks.dynamicviewpager.DynamicPagerAdapter;
+
+import java.util.ArrayList;
+
+/**
+ * A cheap adapter so the benchmarks measure the adapter and ViewPager rather than page content.
+ * Every page is a FrameLayout with a TextView, and items are unique ints that double as stable IDs.
+ */
+class BenchmarkAdapter extends DynamicPagerAdapter<BenchmarkAdapter.CardViewHolder> {
+    private static final String TAG = BenchmarkAdapter.class.getSimpleName();
+
+    static class CardViewHolder extends DynamicPagerAdapter.ViewHolder {
+        final TextView textView;
+
+        CardViewHolder(FrameLayout view, TextView textView) {
+            super(view);
+            this.textView = textView;
+        }
+    }
+
+    private final ArrayList<Integer> values = new ArrayList<>();
+    private final int viewTypeCount;
+    private final boolean stableIds;
+    private int nextValue;
+
+    BenchmarkAdapter(int itemCount, int viewTypeCount, boolean stableIds) {
+        this.viewTypeCount = viewTypeCount;
+        this.stableIds = stableIds;
+
+        for (int i = 0; i < itemCount; i++) {
+            values.add(i);
+        }
+        nextValue = itemCount;
+    }
+
+    /**
+     * Removes the item at the position given without notifying.
+     */
+    void removeValue(int position) {
+        values.remove(position);
+    }
+
+    /**
+     * Inserts a new unique item at the position given without notifying.
+     */
+    void insertValue(int position) {
+        values.add(position, nextValue++);
+    }
+
+    @Override
+    public CardViewHolder onCreateViewHolder(ViewGroup container, int position, int viewType) {
+        FrameLayout view = new FrameLayout(container.getContext());
+        TextView textView = new TextView(container.getContext());
+        view.addView(textView);
+
+        return new CardViewHolder(view, textView);
+    }
+
+    @Override
+    public void onBindViewHolder(CardViewHolder viewHolder, int position) {
+        viewHolder.textView.setText(String.valueOf(values.get(position)));
+    }
+
+    @Override
+    public int getViewType(int position) {
+        return viewTypeCount <= 1 ? DEFAULT_VIEW_TYPE : values.get(position) % viewTypeCount;
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return stableIds;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds ? values.get(position) : NO_ID;
+    }
+
+    @Override
+    public int getCount() {
+        return values.size();
+    }
+
+    /**
+     * @return the number of ViewHolders currently attached to the ViewPager.
+     */
+    int getCachedViewHolderCount() {
+        return getViewHolderArray().size();
+    }
+}
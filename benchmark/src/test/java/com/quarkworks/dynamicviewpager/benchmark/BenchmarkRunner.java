@@ -0,0 +1,136 @@
+package com.quarkworks.dynamicviewpager.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A small timing harness: runs an operation for a number of warmup iterations, then times a
+ * number of measured iterations and collects per-op statistics. Results for a suite are written
+ * as a JSON array to the directory in the benchmark.outputDir system property (set by
+ * build.gradle), so CI can compare runs.
+ */
+final class BenchmarkRunner {
+    private static final String TAG = BenchmarkRunner.class.getSimpleName();
+
+    static final int WARMUP_ITERATIONS = 20;
+    static final int MEASURED_ITERATIONS = 50;
+
+    interface Op {
+        /**
+         * @param index Increases by one on every call, across warmup and measured iterations.
+         */
+        void run(int index);
+    }
+
+    static final class Result {
+        final String name;
+        final String params;
+        final int opsPerIteration;
+        final double meanNsPerOp;
+        final double p50NsPerOp;
+        final double p90NsPerOp;
+        final double minNsPerOp;
+        final double maxNsPerOp;
+
+        Result(String name, String params, int opsPerIteration, double[] nsPerOp) {
+            this.name = name;
+            this.params = params;
+            this.opsPerIteration = opsPerIteration;
+
+            double[] sorted = nsPerOp.clone();
+            Arrays.sort(sorted);
+
+            double sum = 0;
+            for (double value : sorted) {
+                sum += value;
+            }
+
+            meanNsPerOp = sum / sorted.length;
+            p50NsPerOp = sorted[(int) Math.ceil(sorted.length * 0.5) - 1];
+            p90NsPerOp = sorted[(int) Math.ceil(sorted.length * 0.9) - 1];
+            minNsPerOp = sorted[0];
+            maxNsPerOp = sorted[sorted.length - 1];
+        }
+
+        String toJson() {
+            return "{\"name\":\"" + name + "\""
+                    + ",\"params\":\"" + params + "\""
+                    + ",\"opsPerIteration\":" + opsPerIteration
+                    + ",\"iterations\":" + MEASURED_ITERATIONS
+                    + ",\"meanNsPerOp\":" + format(meanNsPerOp)
+                    + ",\"p50NsPerOp\":" + format(p50NsPerOp)
+                    + ",\"p90NsPerOp\":" + format(p90NsPerOp)
+                    + ",\"minNsPerOp\":" + format(minNsPerOp)
+                    + ",\"maxNsPerOp\":" + format(maxNsPerOp)
+                    + "}";
+        }
+
+        private static String format(double value) {
+            return String.valueOf(Math.round(value * 10) / 10.0);
+        }
+    }
+
+    private final String suiteName;
+    private final List<Result> results = new ArrayList<>();
+
+    BenchmarkRunner(String suiteName) {
+        this.suiteName = suiteName;
+    }
+
+    Result run(String name, String params, int opsPerIteration, Op op) {
+        int index = 0;
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            for (int j = 0; j < opsPerIteration; j++) {
+                op.run(index++);
+            }
+        }
+
+        double[] nsPerOp = new double[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long startNs = System.nanoTime();
+            for (int j = 0; j < opsPerIteration; j++) {
+                op.run(index++);
+            }
+            nsPerOp[i] = (System.nanoTime() - startNs) / (double) opsPerIteration;
+        }
+
+        Result result = new Result(name, params, opsPerIteration, nsPerOp);
+        results.add(result);
+        System.out.println(suiteName + ": " + result.toJson());
+        return result;
+    }
+
+    /**
+     * @return how many times {@link #run} will call the op for the ops per iteration given.
+     */
+    static int totalOps(int opsPerIteration) {
+        return (WARMUP_ITERATIONS + MEASURED_ITERATIONS) * opsPerIteration;
+    }
+
+    void writeResults() throws IOException {
+        String outputDir = System.getProperty("benchmark.outputDir", "build/benchmark-results");
+        File directory = new File(outputDir);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        Writer writer = new FileWriter(new File(directory, suiteName + ".json"));
+        try {
+            writer.write("[\n");
+            for (int i = 0; i < results.size(); i++) {
+                writer.write("  ");
+                writer.write(results.get(i).toJson());
+                writer.write(i < results.size() - 1 ? ",\n" : "\n");
+            }
+            writer.write("]\n");
+        } finally {
+            writer.close();
+        }
+    }
+}
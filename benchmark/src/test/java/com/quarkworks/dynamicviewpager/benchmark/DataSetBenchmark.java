@@ -0,0 +1,111 @@
+package com.quarkworks.dynamicviewpager.benchmark;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Times data set changes: rebinding every attached page with updateViews() at several offscreen
+ * page limits, and removing and inserting an item next to the current page with granular
+ * notifications and with notifyDataSetChanged() with and without stable IDs.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class DataSetBenchmark {
+
+    private static final int ITEM_COUNT = 1000;
+    private static final int CURRENT_ITEM = ITEM_COUNT / 2;
+    private static final int OPS_PER_ITERATION = 20;
+
+    private static final BenchmarkRunner runner = new BenchmarkRunner(DataSetBenchmark.class.getSimpleName());
+
+    @AfterClass
+    public static void writeResults() throws Exception {
+        runner.writeResults();
+    }
+
+    private static PagerFixture createFixture(int offscreenPageLimit, boolean stableIds) {
+        PagerFixture fixture = new PagerFixture(ITEM_COUNT, 1, offscreenPageLimit, stableIds);
+        fixture.setCurrentItem(CURRENT_ITEM);
+        return fixture;
+    }
+
+    @Test
+    public void updateViews_5Holders() throws Exception {
+        updateViews(2);
+    }
+
+    @Test
+    public void updateViews_51Holders() throws Exception {
+        updateViews(25);
+    }
+
+    @Test
+    public void updateViews_501Holders() throws Exception {
+        updateViews(250);
+    }
+
+    private void updateViews(int offscreenPageLimit) {
+        final PagerFixture fixture = createFixture(offscreenPageLimit, false);
+        int holders = fixture.adapter.getCachedViewHolderCount();
+        assertEquals(offscreenPageLimit * 2 + 1, holders);
+
+        runner.run("updateViews", "cachedHolders=" + holders, OPS_PER_ITERATION, new BenchmarkRunner.Op() {
+            @Override
+            public void run(int index) {
+                fixture.adapter.updateViews();
+            }
+        });
+    }
+
+    /**
+     * Removes and re-inserts the item after the current one, so the attached pages on one side
+     * shift by one each way.
+     */
+    @Test
+    public void removeAndInsert_granular() throws Exception {
+        final PagerFixture fixture = createFixture(2, false);
+
+        runner.run("removeAndInsert", "notifyItemRemoved/notifyItemInserted", OPS_PER_ITERATION, new BenchmarkRunner.Op() {
+            @Override
+            public void run(int index) {
+                fixture.adapter.removeValue(CURRENT_ITEM + 1);
+                fixture.adapter.notifyItemRemoved(CURRENT_ITEM + 1);
+                fixture.adapter.insertValue(CURRENT_ITEM + 1);
+                fixture.adapter.notifyItemInserted(CURRENT_ITEM + 1);
+            }
+        });
+
+        assertEquals(5, fixture.adapter.getCachedViewHolderCount());
+    }
+
+    @Test
+    public void removeAndInsert_notifyDataSetChanged_stableIds() throws Exception {
+        removeAndInsertWithNotifyDataSetChanged(true);
+    }
+
+    @Test
+    public void removeAndInsert_notifyDataSetChanged() throws Exception {
+        removeAndInsertWithNotifyDataSetChanged(false);
+    }
+
+    private void removeAndInsertWithNotifyDataSetChanged(boolean stableIds) {
+        final PagerFixture fixture = createFixture(2, stableIds);
+
+        runner.run("removeAndInsert", "notifyDataSetChanged,stableIds=" + stableIds, OPS_PER_ITERATION, new BenchmarkRunner.Op() {
+            @Override
+            public void run(int index) {
+                fixture.adapter.removeValue(CURRENT_ITEM + 1);
+                fixture.adapter.notifyDataSetChanged();
+                fixture.adapter.insertValue(CURRENT_ITEM + 1);
+                fixture.adapter.notifyDataSetChanged();
+            }
+        });
+
+        assertEquals(5, fixture.adapter.getCachedViewHolderCount());
+    }
+}
@@ -0,0 +1,44 @@
+package com.quarkworks.dynamicviewpager.benchmark;
+
+import android.view.View;
+
+import com.quarkworks.dynamicviewpager.SwipeRemovalViewPager;
+
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * A SwipeRemovalViewPager laid out at a phone sized resolution with a {@link BenchmarkAdapter}.
+ * Paging happens without smooth scrolling so every page change populates synchronously, and
+ * prefetching is turned off so its posted work doesn't leak into other measurements.
+ */
+final class PagerFixture {
+    private static final String TAG = PagerFixture.class.getSimpleName();
+
+    static final int WIDTH = 1080;
+    static final int HEIGHT = 1920;
+
+    final BenchmarkAdapter adapter;
+    final SwipeRemovalViewPager viewPager;
+
+    PagerFixture(int itemCount, int viewTypeCount, int offscreenPageLimit, boolean stableIds) {
+        adapter = new BenchmarkAdapter(itemCount, viewTypeCount, stableIds);
+
+        viewPager = new SwipeRemovalViewPager(RuntimeEnvironment.application);
+        viewPager.setPrefetchEnabled(false);
+        viewPager.setOffscreenPageLimit(offscreenPageLimit);
+        viewPager.setAdapter(adapter);
+
+        layout();
+    }
+
+    void layout() {
+        viewPager.measure(
+                View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        viewPager.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    void setCurrentItem(int item) {
+        viewPager.setCurrentItem(item, false);
+    }
+}
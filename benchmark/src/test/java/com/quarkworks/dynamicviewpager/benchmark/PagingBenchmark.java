@@ -0,0 +1,90 @@
+package com.quarkworks.dynamicviewpager.benchmark;
+
+import android.view.View;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Times paging through the adapter: instantiateItem/destroyItem churn with one and with several
+ * view types, and position lookups for attached pages.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class PagingBenchmark {
+
+    private static final int OPS_PER_ITERATION = 100;
+
+    private static final BenchmarkRunner runner = new BenchmarkRunner(PagingBenchmark.class.getSimpleName());
+
+    @AfterClass
+    public static void writeResults() throws Exception {
+        runner.writeResults();
+    }
+
+    @Test
+    public void pageForward_singleViewType() throws Exception {
+        pageForward("pageForward", 1);
+    }
+
+    @Test
+    public void pageForward_multipleViewTypes() throws Exception {
+        pageForward("pageForward", 3);
+    }
+
+    /**
+     * Every op moves one page forward, which destroys one page and instantiates another from the
+     * pool. With several view types the pool has to be hit per type.
+     */
+    private void pageForward(String name, int viewTypeCount) {
+        final PagerFixture fixture = new PagerFixture(
+                BenchmarkRunner.totalOps(OPS_PER_ITERATION) + 1, viewTypeCount, 2, false);
+
+        runner.run(name, "viewTypes=" + viewTypeCount, OPS_PER_ITERATION, new BenchmarkRunner.Op() {
+            @Override
+            public void run(int index) {
+                fixture.setCurrentItem(index + 1);
+            }
+        });
+
+        assertEquals(5, fixture.adapter.getCachedViewHolderCount());
+    }
+
+    @Test
+    public void pageBackAndForth() throws Exception {
+        final PagerFixture fixture = new PagerFixture(1000, 1, 2, false);
+        fixture.setCurrentItem(500);
+
+        runner.run("pageBackAndForth", "viewTypes=1", OPS_PER_ITERATION, new BenchmarkRunner.Op() {
+            @Override
+            public void run(int index) {
+                fixture.setCurrentItem(500 + (index & 1));
+            }
+        });
+    }
+
+    @Test
+    public void getPositionForView() throws Exception {
+        final PagerFixture fixture = new PagerFixture(1000, 1, 2, false);
+        fixture.setCurrentItem(500);
+
+        final View[] views = new View[5];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = fixture.adapter.getViewAt(498 + i);
+        }
+
+        runner.run("getPositionForView", "cachedHolders=5", OPS_PER_ITERATION, new BenchmarkRunner.Op() {
+            @Override
+            public void run(int index) {
+                fixture.adapter.getPositionForView(views[index % views.length]);
+            }
+        });
+
+        assertEquals(502, fixture.adapter.getPositionForView(views[4]));
+    }
+}
@@ -0,0 +1,224 @@
+package com.quarkworks.dynamicviewpager;
+
+import android.support.annotation.Nullable;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A DynamicPagerAdapter backed by a List that is replaced as a whole with {@link #submitList(List)}.
+ * The difference between the old and new list is computed with DiffUtil on a background Executor
+ * and applied on the main thread. Pages of changed items are rebound, pages of moved items keep
+ * their ViewHolders and only pages of removed items are destroyed.
+ *
+ * Lists handed to {@link #submitList(List)} must not be modified afterwards; submit a new list
+ * instead.
+ */
+abstract public class AsyncListPagerAdapter<T, VH extends DynamicPagerAdapter.ViewHolder> extends DynamicPagerAdapter<VH> {
+    private static final String TAG = AsyncListPagerAdapter.class.getSimpleName();
+
+    /**
+     * Decides whether two items represent the same entry and whether its contents changed.
+     */
+    public static abstract class ItemCallback<T> {
+
+        /**
+         * @return True if the items represent the same entry, usually by comparing IDs.
+         */
+        public abstract boolean areItemsTheSame(T oldItem, T newItem);
+
+        /**
+         * Only called when {@link #areItemsTheSame(Object, Object)} returned true.
+         *
+         * @return True if the page for the item does not need to be rebound.
+         */
+        public abstract boolean areContentsTheSame(T oldItem, T newItem);
+
+        /**
+         * Only called when the items are the same but their contents are not. Return a payload to
+         * get a partial bind through {@link DynamicPagerAdapter#onBindViewHolder(ViewHolder, int, List)},
+         * or null for a full bind.
+         */
+        @Nullable
+        public Object getChangePayload(T oldItem, T newItem) {
+            return null;
+        }
+    }
+
+    @Nullable private static ExecutorService defaultDiffExecutor;
+
+    private final ItemCallback<T> itemCallback;
+    private final Executor diffExecutor;
+
+    private List<T> items = Collections.emptyList();
+
+    /**
+     * Incremented on every submit so a diff that finishes after a newer list was submitted is
+     * dropped.
+     */
+    private int submitGeneration = 0;
+
+    /**
+     * A diff that finished while a batch was open, applied once it ends.
+     */
+    @Nullable private List<T> pendingList;
+    @Nullable private DiffUtil.DiffResult pendingDiff;
+
+    private final ListUpdateCallback updateCallback = new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            offsetPositionsForInsert(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            offsetPositionsForRemove(position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            offsetPositionsForMove(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            markPositionsChanged(position, count, payload);
+        }
+    };
+
+    public AsyncListPagerAdapter(ItemCallback<T> itemCallback) {
+        this(itemCallback, getDefaultDiffExecutor());
+    }
+
+    /**
+     * @param diffExecutor Used to compute diffs. It must not run tasks on the main thread.
+     */
+    public AsyncListPagerAdapter(ItemCallback<T> itemCallback, Executor diffExecutor) {
+        this.itemCallback = itemCallback;
+        this.diffExecutor = diffExecutor;
+    }
+
+    private static synchronized Executor getDefaultDiffExecutor() {
+        if (defaultDiffExecutor == null) {
+            defaultDiffExecutor = Executors.newSingleThreadExecutor();
+        }
+        return defaultDiffExecutor;
+    }
+
+    /**
+     * Replaces the list. Must be called on the main thread. The adapter keeps showing the old
+     * list until the diff has been computed and any batch open by then has ended, unless either
+     * list is empty, in which case the new list is applied right away.
+     */
+    public void submitList(@Nullable List<T> newList) {
+        final List<T> oldList = items;
+        final List<T> submitted = newList == null ? Collections.<T>emptyList() : newList;
+
+        if (submitted == oldList) {
+            return;
+        }
+
+        final int generation = ++submitGeneration;
+        pendingList = null;
+        pendingDiff = null;
+
+        if (oldList.isEmpty() || submitted.isEmpty()) {
+            items = submitted;
+            notifyDataSetChanged();
+            return;
+        }
+
+        diffExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                    @Override
+                    public int getOldListSize() {
+                        return oldList.size();
+                    }
+
+                    @Override
+                    public int getNewListSize() {
+                        return submitted.size();
+                    }
+
+                    @Override
+                    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                        return itemCallback.areItemsTheSame(oldList.get(oldItemPosition), submitted.get(newItemPosition));
+                    }
+
+                    @Override
+                    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                        return itemCallback.areContentsTheSame(oldList.get(oldItemPosition), submitted.get(newItemPosition));
+                    }
+
+                    @Override
+                    public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+                        return itemCallback.getChangePayload(oldList.get(oldItemPosition), submitted.get(newItemPosition));
+                    }
+                }, true);
+
+                MainThreadDispatcher.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == submitGeneration) {
+                            applyDiff(submitted, result);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * The list is swapped in the same pass that moves the cached positions and tells the
+     * ViewPager, so a batch that is open holds back the whole diff rather than only its
+     * notifications.
+     */
+    private void applyDiff(List<T> newList, DiffUtil.DiffResult result) {
+        if (isBatchingUpdates()) {
+            pendingList = newList;
+            pendingDiff = result;
+            return;
+        }
+
+        items = newList;
+        result.dispatchUpdatesTo(updateCallback);
+        dispatchPositionChanges();
+    }
+
+    @Override
+    void onPendingUpdatesApplied() {
+        if (pendingDiff == null || pendingList == null) {
+            return;
+        }
+
+        List<T> newList = pendingList;
+        DiffUtil.DiffResult result = pendingDiff;
+        pendingList = null;
+        pendingDiff = null;
+
+        applyDiff(newList, result);
+    }
+
+    /**
+     * @return the list currently shown. Do not modify it.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    public T getItem(int position) {
+        return items.get(position);
+    }
+
+    @Override
+    public int getCount() {
+        return items.size();
+    }
+}
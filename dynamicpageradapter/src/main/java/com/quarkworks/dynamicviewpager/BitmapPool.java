@@ -0,0 +1,109 @@
+package com.quarkworks.dynamicviewpager;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.support.annotation.Nullable;
+
+import com.quarkworks.dynamicviewpager.helpers.SizeBucketedPool;
+
+/**
+ * Keeps the Bitmaps of recycled pages so the next decode can reuse their memory (see
+ * {@link android.graphics.BitmapFactory.Options#inBitmap}) instead of allocating, which is what
+ * makes paging through full-bleed images stutter with GC pauses. Bitmaps are bucketed by
+ * allocation size, and any Bitmap at least as big as a decode needs (within reason) can be
+ * reused for it.
+ *
+ * Decoding into a Bitmap of a different size only works from API 19, so nothing is pooled
+ * below that. This is thread safe.
+ */
+public class BitmapPool {
+    private static final String TAG = BitmapPool.class.getSimpleName();
+
+    private final SizeBucketedPool<Bitmap> pool;
+
+    /**
+     * Keeps up to an eighth of the heap.
+     */
+    public BitmapPool() {
+        this((int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8));
+    }
+
+    /**
+     * @param maxBytes The total allocation size of the Bitmaps to keep.
+     */
+    public BitmapPool(int maxBytes) {
+        pool = new SizeBucketedPool<Bitmap>(maxBytes) {
+            @Override
+            protected void onEvicted(Bitmap bitmap) {
+                bitmap.recycle();
+            }
+        };
+    }
+
+    public static boolean canReuseBitmaps() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+    }
+
+    /**
+     * @return a mutable Bitmap with at least the allocation size given to decode into, or null if
+     * there is none.
+     */
+    @Nullable
+    public Bitmap get(int byteCount) {
+        if (!canReuseBitmaps()) {
+            return null;
+        }
+        return pool.get(byteCount);
+    }
+
+    /**
+     * Pools a Bitmap for reuse. Nothing else may use it afterwards, including any View still
+     * showing it.
+     */
+    public void put(@Nullable Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+
+        if (!canReuseBitmaps() || !bitmap.isMutable()) {
+            bitmap.recycle();
+            return;
+        }
+
+        pool.put(bitmap, bitmap.getAllocationByteCount());
+    }
+
+    /**
+     * @return the total allocation size of the pooled Bitmaps.
+     */
+    public int getSize() {
+        return pool.getSize();
+    }
+
+    public void setMaxSize(int maxBytes) {
+        pool.setMaxSize(maxBytes);
+    }
+
+    public void clear() {
+        pool.clear();
+    }
+
+    /**
+     * Releases pooled Bitmaps under memory pressure, like
+     * {@link DynamicPagerAdapter#onTrimMemory(int)}: all of them from
+     * {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_LOW} up, half of them below that, and none
+     * for {@link ComponentCallbacks2#TRIM_MEMORY_UI_HIDDEN}, which isn't memory pressure.
+     */
+    public void onTrimMemory(int level) {
+        if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            return;
+        }
+
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            pool.clear();
+        } else {
+            pool.trimToSize(pool.getSize() / 2);
+        }
+    }
+}
@@ -1,20 +1,38 @@
 package com.quarkworks.dynamicviewpager;
 
-import android.os.Handler;
-import android.os.Looper;
+import android.content.ComponentCallbacks2;
+import android.os.Bundle;
+import android.os.Parcelable;
+import android.support.annotation.LayoutRes;
 import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.support.v4.util.LruCache;
+import android.support.v4.view.AsyncLayoutInflater;
 import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPropertyAnimatorListener;
+import android.support.v4.view.ViewPropertyAnimatorListenerAdapter;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.animation.AccelerateDecelerateInterpolator;
 import android.view.animation.AccelerateInterpolator;
 import android.view.animation.Animation;
-import android.view.animation.TranslateAnimation;
+import android.view.animation.Interpolator;
 
-import com.quarkworks.dynamicviewpager.helpers.RealTranslateAnimation;
-import com.quarkworks.dynamicviewpager.helpers.SimpleAnimationListener;
+import com.quarkworks.dynamicviewpager.helpers.DiscardQueue;
+import com.quarkworks.dynamicviewpager.helpers.IntSparseArray;
+import com.quarkworks.dynamicviewpager.helpers.LayerAnimations;
+import com.quarkworks.dynamicviewpager.helpers.PriorityExecutor;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
 
 /**
  * A PagerAdapter for ViewPager that keeps a cache of ViewHolders. The data set can be updated
@@ -33,143 +51,1893 @@ abstract public class DynamicPagerAdapter<VH extends DynamicPagerAdapter.ViewHol
      */
     public static final int NO_POSITION = -1;
 
+    /**
+     * Used to denote a missing item ID. See {@link #getItemId(int)}
+     */
+    public static final long NO_ID = -1;
+
     /**
      * To use multiple view types, override {@link #getViewType(int)}
      */
     public static final int DEFAULT_VIEW_TYPE = -1;
 
+    /**
+     * See {@link #setMaxSavedItemStates(int)}
+     */
+    public static final int DEFAULT_MAX_SAVED_ITEM_STATES = 32;
+
+    /**
+     * The most {@link BackgroundBind}s that run at once.
+     */
+    public static final int BIND_THREADS = 2;
+
+    private static final String KEY_ITEM_IDS = "dynamicpageradapter:itemIds";
+    private static final String KEY_ITEM_STATE_PREFIX = "dynamicpageradapter:itemState:";
+
+    private static final String MISSING_LAYOUT_VIEW_HOLDER = "getAsyncLayoutId() returned a layout " +
+            "but onCreateViewHolderFromLayout() was not overridden";
+
     public static abstract class ViewHolder {
         public final View view;
         public int viewType = DEFAULT_VIEW_TYPE;
 
+        int position = NO_POSITION;
+        long itemId = NO_ID;
+        boolean needsRebind = false;
+        boolean needsFullBind = false;
+        @Nullable ArrayList<Object> pendingPayloads;
+
+        /**
+         * Created by SwipeRemovalViewPager the first time this page is swiped, then reused.
+         */
+        @Nullable SwipeSettleAnimation settleAnimation;
+
+        /**
+         * The background part of the last bind, until it is delivered or canceled.
+         */
+        @Nullable PriorityExecutor.Task scheduledBind;
+
         public ViewHolder(View view) {
             this.view = view;
         }
+
+        /**
+         * @return the position this ViewHolder is cached at, or {@link #NO_POSITION} if it is
+         * not attached.
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * @return the ID of the item this ViewHolder was last bound to, or {@link #NO_ID} if the
+         * adapter doesn't have stable IDs.
+         */
+        public long getItemId() {
+            return itemId;
+        }
+    }
+
+    /**
+     * The part of a bind that can run off the main thread, such as formatting text or computing
+     * layouts. See {@link #scheduleBind(ViewHolder, int, BackgroundBind)}.
+     *
+     * @param <R> The result handed from the background to the ViewHolder.
+     */
+    public static abstract class BackgroundBind<VH extends ViewHolder, R> {
+
+        /**
+         * Called on a bind thread. Must not touch Views or the ViewHolder.
+         */
+        @WorkerThread
+        protected abstract R doInBackground();
+
+        /**
+         * Called on the main thread, only if the ViewHolder is still bound to the item it was
+         * scheduled for.
+         */
+        protected abstract void onBindResult(VH viewHolder, R result);
     }
 
-    private WeakHashMap<Integer, VH> viewHolderCache = new WeakHashMap<>();
+    private final IntSparseArray<VH> viewHolderCache = new IntSparseArray<>();
+    private final IdentityHashMap<View, VH> viewHolderByView = new IdentityHashMap<>();
+    private RecycledViewPool<VH> recycledViewPool = new RecycledViewPool<>();
+    private final IntSparseArray<VH> prefetchedViewHolders = new IntSparseArray<>(4);
+    private final ArrayList<VH> remapScratch = new ArrayList<>();
+    private int maxRetainedViewHolders = Integer.MAX_VALUE;
+
+    /**
+     * The View state of destroyed pages, keyed by item ID, waiting for the item to be bound again.
+     */
+    private final LruCache<Long, SparseArray<Parcelable>> savedItemStates = new LruCache<>(DEFAULT_MAX_SAVED_ITEM_STATES);
+    private int maxSavedItemStates = DEFAULT_MAX_SAVED_ITEM_STATES;
+
+    /**
+     * See {@link #setLooping(boolean)}
+     */
+    private boolean isLooping = false;
+    private int minLoopingCount = 3;
+    @Nullable private LoopingPagerAdapter loopingAdapter;
+
+    @Nullable private PriorityExecutor bindExecutor;
+
+    /**
+     * The window last passed to {@link #onPrefetchPosition(int, int)}.
+     */
+    private int prefetchWindowCenter = NO_POSITION;
+    private int prefetchWindowDistance = 0;
+
+    private final PriorityExecutor.Prioritizer bindPrioritizer = new PriorityExecutor.Prioritizer() {
+        @Override
+        public int getPriority(PriorityExecutor.Task task) {
+            ScheduledBind<?> scheduledBind = (ScheduledBind<?>) task;
+            if (scheduledBind.isCanceled) {
+                return PriorityExecutor.DROP;
+            }
+            return getDistanceFromPrimary(scheduledBind.position);
+        }
+    };
+
+    private boolean isTrackingPositions = false;
+    private boolean hasPendingStructureChange = false;
     private boolean isViewAnimating = false;
 
+    /**
+     * How deeply {@link #beginUpdates()} is nested, and the changes held back meanwhile or during
+     * an animation (see {@link #isBatchingUpdates()}).
+     */
+    private int updateDepth = 0;
+    private boolean hasPendingPositionChanges = false;
+    private boolean hasPendingDataSetChange = false;
+
+    @Nullable private AsyncLayoutInflater asyncLayoutInflater;
+    private final SparseIntArray pendingAsyncInflations = new SparseIntArray();
+    private final ArrayList<View> attachedPlaceholders = new ArrayList<>();
+    private final ArrayList<VH> inflatedViewHolders = new ArrayList<>();
+    private boolean hasCheckedAsyncLayouts = false;
+    private final Runnable swapInPlaceholdersRunnable = new Runnable() {
+        @Override
+        public void run() {
+            swapInPlaceholders();
+        }
+    };
+
     @Nullable private Callbacks callbacks;
+    @Nullable private PagerMetricsListener metricsListener;
+
+    private long discardStartNs = 0;
+    private long collapseStartNs = 0;
+
+    /**
+     * The ViewPager's current item, as last given to {@link #setPrimaryItem}.
+     */
+    private int primaryPosition = NO_POSITION;
+
+    /**
+     * Interpolators hold no state, so every animation shares these.
+     */
+    private static final Interpolator DISCARD_INTERPOLATOR = new AccelerateInterpolator();
+    private static final Interpolator COLLAPSE_INTERPOLATOR = new AccelerateDecelerateInterpolator();
+
+    /**
+     * Only one discard animates at a time, so its state lives here and the listeners and Runnable
+     * below are shared by every discard. Nothing is allocated per discard.
+     */
+    @Nullable private DiscardQueue.Entry<View> inFlightDiscard;
+    private final DiscardQueue<View> queuedDiscards = new DiscardQueue<>();
+    private final ArrayList<View> discardAnimatingViews = new ArrayList<>();
+
+    /**
+     * Views a collapse slid over, which keep their translation until the ViewPager lays them out
+     * at their new positions.
+     */
+    private final ArrayList<View> collapsedViews = new ArrayList<>();
+    private int pendingDiscardAnimations = 0;
+    private boolean isCollapsing = false;
+    private boolean isFastForwarding = false;
+    private int[] positionScratch = new int[8];
+
+    /**
+     * Set when the queued positions are shifted by a notification, so a finished discard can tell
+     * whether its callbacks notified the removal themselves.
+     */
+    private boolean haveDiscardsShifted = false;
+
+    private final DiscardQueue.PositionLookup itemPositionLookup = new DiscardQueue.PositionLookup() {
+        @Override
+        public int findPosition(long itemId, int oldPosition) {
+            return findPositionForItemId(itemId, oldPosition, getCount());
+        }
+    };
+
+    /**
+     * Counts down the discard animations of the discard in flight, then collapses the pages
+     * around it. Animations canceled by {@link #fastForwardDiscards()} are ignored.
+     */
+    private final ViewPropertyAnimatorListener discardAnimationListener = new ViewPropertyAnimatorListenerAdapter() {
+        @Override
+        public void onAnimationEnd(View view) {
+            DiscardQueue.Entry<View> discard = inFlightDiscard;
+            if (discard == null || isCollapsing || isFastForwarding || --pendingDiscardAnimations > 0) {
+                return;
+            }
+
+            reportAnimation(PagerMetricsListener.EVENT_DISCARD_ANIMATION, discardStartNs);
+
+            if (discard.isBatch()) {
+                collapseSurvivors(discard);
+            } else {
+                collapseViewsIn(discard.view);
+            }
+        }
+    };
+
+    private final ViewPropertyAnimatorListener collapseAnimationListener = new ViewPropertyAnimatorListenerAdapter() {
+        @Override
+        public void onAnimationEnd(View view) {
+            if (inFlightDiscard == null || !isCollapsing || isFastForwarding || --pendingDiscardAnimations > 0) {
+                return;
+            }
+
+            reportAnimation(PagerMetricsListener.EVENT_COLLAPSE_ANIMATION, collapseStartNs);
+
+            //Notify the callbacks on the next main loop (prevents screen flash)
+            MainThreadDispatcher.repost(completeInFlightDiscard);
+        }
+    };
+
+    /**
+     * Subclasses written against the hooks that took an {@link Animation.AnimationListener} still
+     * get those called, checked once when the first discard starts.
+     */
+    private boolean hasCheckedLegacyAnimations = false;
+    private boolean overridesLegacyDiscardAnimation = false;
+    private boolean overridesLegacyNextViewAnimation = false;
+
+    private final Animation.AnimationListener legacyDiscardAnimationListener = new LegacyAnimationListener(discardAnimationListener);
+    private final Animation.AnimationListener legacyCollapseAnimationListener = new LegacyAnimationListener(collapseAnimationListener);
+
+    /**
+     * Also posted when a View of the discard in flight is reset before its animation ended, since
+     * its listener is gone then. The animations still running are stopped where they are.
+     */
+    private final Runnable completeInFlightDiscard = new Runnable() {
+        @Override
+        public void run() {
+            if (inFlightDiscard != null) {
+                cancelDiscardAnimations();
+                completeDiscard(inFlightDiscard);
+            }
+        }
+    };
 
     @Override
     public Object instantiateItem(ViewGroup container, int position) {
-
-        VH viewHolder = null;
+        long startNs = System.nanoTime();
         int viewType = getViewType(position);
 
-        if(viewHolderCache.containsKey(position)) {
-            viewHolder = viewHolderCache.get(position);
+        View view = attachView(container, position, viewType);
 
-            if(viewHolder.viewType != viewType) {
-                destroyItem(container, position, viewHolder.view);
-                viewHolder = null;
-            }
+        if (metricsListener != null) {
+            metricsListener.onTimedEvent(PagerMetricsListener.EVENT_INSTANTIATE_ITEM, viewType, System.nanoTime() - startNs);
+        }
+        return view;
+    }
+
+    private View attachView(ViewGroup container, int position, int viewType) {
+        VH viewHolder = viewHolderCache.get(position);
+
+        if(viewHolder != null && viewHolder.viewType != viewType) {
+            destroyItem(container, position, viewHolder.view);
+            viewHolder = null;
         }
 
         if (viewHolder == null) {
-            viewHolder = onCreateViewHolder(container, position, viewType);
-            viewHolder.viewType = viewType;
-            viewHolderCache.put(position, viewHolder);
+            viewHolder = takePrefetchedViewHolder(position, viewType);
+
+            //Prefetched ViewHolders are already bound, so they only need their state and to be
+            //attached
+            if (viewHolder != null) {
+                reportLookup(PagerMetricsListener.LOOKUP_PREFETCH_HIT, viewType);
+                restoreItemState(viewHolder);
+                cacheViewHolder(position, viewHolder);
+                container.addView(viewHolder.view);
+                onViewAttached(viewHolder);
+                return viewHolder.view;
+            }
+
+            viewHolder = takeInflatedViewHolder(viewType);
+            if (viewHolder == null) {
+                viewHolder = recycledViewPool.getRecycledView(viewType);
+            }
+
+            if (viewHolder == null) {
+                int layoutId = resolveAsyncLayoutId(viewType);
+
+                //Show a placeholder until the layout has been inflated in the background
+                if (layoutId != 0) {
+                    reportLookup(PagerMetricsListener.LOOKUP_PLACEHOLDER, viewType);
+                    requestAsyncInflation(container, layoutId, viewType);
+
+                    View placeholder = onCreatePlaceholderView(container, position, viewType);
+                    attachedPlaceholders.add(placeholder);
+                    container.addView(placeholder);
+                    return placeholder;
+                }
+
+                reportLookup(PagerMetricsListener.LOOKUP_MISS, viewType);
+                viewHolder = createViewHolder(container, position, viewType);
+            } else {
+                reportLookup(PagerMetricsListener.LOOKUP_POOL_HIT, viewType);
+            }
+
+            cacheViewHolder(position, viewHolder);
+        } else {
+            reportLookup(PagerMetricsListener.LOOKUP_CACHE_HIT, viewType);
         }
 
-        onBindViewHolder(viewHolder, position);
+        bindViewHolder(viewHolder, position);
 
         container.addView(viewHolder.view);
+        onViewAttached(viewHolder);
         return viewHolder.view;
     }
 
-    public abstract VH onCreateViewHolder(ViewGroup container, int position, int viewType);
+    /**
+     * Override to create pages of a view type off the main thread. The layout returned is inflated
+     * on a background thread with an {@link AsyncLayoutInflater} and handed to
+     * {@link #onCreateViewHolderFromLayout(View, int)}. Until it is ready, the page shows the View
+     * from {@link #onCreatePlaceholderView(ViewGroup, int, int)}, which is swapped out
+     * automatically.
+     *
+     * The layout must be inflatable off the main thread (see AsyncLayoutInflater). Layouts that
+     * fail are inflated on the main thread instead.
+     *
+     * @return a layout resource, or 0 (the default) to create pages of the view type
+     * synchronously with {@link #onCreateViewHolder(ViewGroup, int, int)}.
+     */
+    @LayoutRes
+    public int getAsyncLayoutId(int viewType) {
+        return 0;
+    }
 
-    public abstract void onBindViewHolder(VH viewHolder, int position);
+    /**
+     * Wraps a View inflated from {@link #getAsyncLayoutId(int)} in a ViewHolder. Called on the
+     * main thread. Must be overridden when {@link #getAsyncLayoutId(int)} is; the adapter throws
+     * an IllegalStateException the first time a layout is returned otherwise.
+     */
+    public VH onCreateViewHolderFromLayout(View view, int viewType) {
+        throw new IllegalStateException(MISSING_LAYOUT_VIEW_HOLDER);
+    }
 
-    @Override
-    public int getItemPosition(Object object) {
-        return POSITION_NONE;
+    /**
+     * Reads {@link #getAsyncLayoutId(int)}, checking the first time a layout is returned that
+     * {@link #onCreateViewHolderFromLayout(View, int)} was overridden, so a missing override fails
+     * before anything is inflated.
+     */
+    @LayoutRes
+    private int resolveAsyncLayoutId(int viewType) {
+        int layoutId = getAsyncLayoutId(viewType);
+        if (layoutId == 0 || hasCheckedAsyncLayouts) {
+            return layoutId;
+        }
+
+        try {
+            Method method = getClass().getMethod("onCreateViewHolderFromLayout", View.class, int.class);
+            if (method.getDeclaringClass() == DynamicPagerAdapter.class) {
+                throw new IllegalStateException(MISSING_LAYOUT_VIEW_HOLDER);
+            }
+        } catch (NoSuchMethodException e) {
+            //Renamed by obfuscation, so this can't be told until a layout is inflated
+        }
+
+        hasCheckedAsyncLayouts = true;
+        return layoutId;
     }
 
     /**
-     * Removes a View from its container and the cache
+     * @return a lightweight View to show while the page's layout is inflated in the background.
+     * The default is an empty View.
      */
-    @Override
-    public void destroyItem(ViewGroup container, int position, Object view) {
-        viewHolderCache.remove(position);
-        container.removeView((View) view);
+    protected View onCreatePlaceholderView(ViewGroup container, int position, int viewType) {
+        return new View(container.getContext());
+    }
+
+    private void requestAsyncInflation(ViewGroup container, @LayoutRes int layoutId, final int viewType) {
+        if (asyncLayoutInflater == null) {
+            asyncLayoutInflater = new AsyncLayoutInflater(container.getContext());
+        }
+
+        pendingAsyncInflations.put(viewType, pendingAsyncInflations.get(viewType) + 1);
+
+        asyncLayoutInflater.inflate(layoutId, container, new AsyncLayoutInflater.OnInflateFinishedListener() {
+            @Override
+            public void onInflateFinished(View view, int resid, ViewGroup parent) {
+                pendingAsyncInflations.put(viewType, pendingAsyncInflations.get(viewType) - 1);
+
+                VH viewHolder = onCreateViewHolderFromLayout(view, viewType);
+                viewHolder.viewType = viewType;
+
+                //Handed straight to the placeholders, since the pool may not have room for it
+                if (!attachedPlaceholders.isEmpty()) {
+                    inflatedViewHolders.add(viewHolder);
+                    MainThreadDispatcher.repost(swapInPlaceholdersRunnable);
+                } else {
+                    retainViewHolder(viewHolder);
+                }
+            }
+        });
+    }
+
+    /**
+     * Placeholders are never in the View index, so {@link #getItemPosition(Object)} reports them
+     * as POSITION_NONE and the ViewPager instantiates their positions again, this time with the
+     * inflated ViewHolders. Every other page keeps its View.
+     */
+    private void swapInPlaceholders() {
+        if (!attachedPlaceholders.isEmpty()) {
+            notifyTrackedPositions();
+        }
+
+        //Those no placeholder needed in the end are kept like any other
+        for (int i = 0; i < inflatedViewHolders.size(); i++) {
+            retainViewHolder(inflatedViewHolders.get(i));
+        }
+        inflatedViewHolders.clear();
+    }
+
+    @Nullable
+    private VH takeInflatedViewHolder(int viewType) {
+        for (int i = 0; i < inflatedViewHolders.size(); i++) {
+            if (inflatedViewHolders.get(i).viewType == viewType) {
+                return inflatedViewHolders.remove(i);
+            }
+        }
+        return null;
+    }
+
+    private VH createViewHolder(ViewGroup container, int position, int viewType) {
+        long startNs = System.nanoTime();
+
+        VH viewHolder = onCreateViewHolder(container, position, viewType);
+        viewHolder.viewType = viewType;
+
+        long durationNs = System.nanoTime() - startNs;
+        recycledViewPool.factorInCreateTime(viewType, durationNs);
+        if (metricsListener != null) {
+            metricsListener.onTimedEvent(PagerMetricsListener.EVENT_CREATE_VIEW_HOLDER, viewType, durationNs);
+        }
+        return viewHolder;
+    }
+
+    private void bindViewHolder(VH viewHolder, int position) {
+        bindViewHolder(viewHolder, position, Collections.emptyList(), true);
+    }
+
+    private void bindViewHolder(VH viewHolder, int position, List<Object> payloads) {
+        bindViewHolder(viewHolder, position, payloads, true);
+    }
+
+    /**
+     * @param restoreState False to leave the item's saved state for when the page is attached.
+     */
+    private void bindViewHolder(VH viewHolder, int position, List<Object> payloads, boolean restoreState) {
+        long startNs = System.nanoTime();
+
+        //A partial bind leaves the item as it is, so a background bind in flight still applies
+        if (payloads.isEmpty()) {
+            cancelScheduledBind(viewHolder);
+        }
+
+        viewHolder.itemId = hasStableIds() ? getItemId(position) : NO_ID;
+        onBindViewHolder(viewHolder, position, payloads);
+
+        if (restoreState && payloads.isEmpty()) {
+            restoreItemState(viewHolder);
+        }
+
+        long durationNs = System.nanoTime() - startNs;
+        recycledViewPool.factorInBindTime(viewHolder.viewType, durationNs);
+        if (metricsListener != null) {
+            metricsListener.onTimedEvent(PagerMetricsListener.EVENT_BIND_VIEW_HOLDER, viewHolder.viewType, durationNs);
+        }
+    }
+
+    private void reportLookup(int result, int viewType) {
+        if (metricsListener != null) {
+            metricsListener.onViewHolderLookup(result, viewType);
+        }
+    }
+
+    /**
+     * Reports create, bind, instantiate, destroy and discard/collapse animation timings and where
+     * each instantiated page came from. See {@link RingBufferMetrics} for a recorder that doesn't
+     * allocate.
+     */
+    public void setMetricsListener(@Nullable PagerMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    @Nullable
+    public PagerMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Creates and binds the page for the ViewPager position given ahead of time so
+     * {@link #instantiateItem(ViewGroup, int)} only has to attach it. Creating and binding are
+     * each skipped if they are not expected to finish before the deadline (based on the running
+     * averages in the {@link RecycledViewPool}); a created but unbound ViewHolder goes to the pool
+     * so the work isn't lost.
+     *
+     * @return True if the position needs no more work, false if it ran out of time.
+     */
+    boolean prefetch(ViewGroup container, int pagerPosition, long deadlineNs) {
+        int position = toDataPosition(pagerPosition);
+        if (position < 0 || position >= getCount()
+                || viewHolderCache.get(position) != null
+                || prefetchedViewHolders.get(position) != null) {
+            return true;
+        }
+
+        int viewType = getViewType(position);
+        VH viewHolder = recycledViewPool.getRecycledView(viewType);
+
+        if (viewHolder == null) {
+            //Over the budget, the page is created when it is needed instead
+            if (getRetainedViewHolderCount() >= maxRetainedViewHolders) {
+                return true;
+            }
+
+            int layoutId = resolveAsyncLayoutId(viewType);
+            if (layoutId != 0) {
+                if (pendingAsyncInflations.get(viewType) == 0) {
+                    requestAsyncInflation(container, layoutId, viewType);
+                }
+                return true;
+            }
+
+            if (!recycledViewPool.willCreateInTime(viewType, System.nanoTime(), deadlineNs)) {
+                return false;
+            }
+            viewHolder = createViewHolder(container, position, viewType);
+        }
+
+        if (!recycledViewPool.willBindInTime(viewType, System.nanoTime(), deadlineNs)) {
+            retainViewHolder(viewHolder);
+            return false;
+        }
+
+        //The saved state stays in the LRU in case the page is released without being attached
+        bindViewHolder(viewHolder, position, Collections.emptyList(), false);
+        prefetchedViewHolders.put(position, viewHolder);
+        return true;
+    }
+
+    /**
+     * Returns prefetched ViewHolders further than the distance given from the position given to
+     * the pool. In looping mode, the distance is measured the short way around the loop.
+     */
+    void clearPrefetchedOutside(int centerPosition, int distance) {
+        boolean isLooping = isLoopingActive();
+        int count = getCount();
+
+        for (int i = prefetchedViewHolders.size() - 1; i >= 0; i--) {
+            int delta = prefetchedViewHolders.keyAt(i) - centerPosition;
+            if (isLooping) {
+                delta = LoopingPagerAdapter.wrappedDelta(delta, count);
+            }
+            if (Math.abs(delta) > distance) {
+                releasePrefetched(prefetchedViewHolders.removeAt(i));
+            }
+        }
+    }
+
+    /**
+     * Calls {@link #onPrefetchPosition(int, int)} for each position within the distance given of
+     * the position given, nearest first, whenever that window changes.
+     */
+    void updatePrefetchWindow(int centerPosition, int distance) {
+        if (centerPosition == prefetchWindowCenter && distance == prefetchWindowDistance) {
+            return;
+        }
+
+        prefetchWindowCenter = centerPosition;
+        prefetchWindowDistance = distance;
+
+        int count = getCount();
+        for (int i = 0; i <= distance; i++) {
+            int next = neighbourOf(centerPosition, i);
+            if (next >= 0 && next < count) {
+                onPrefetchPosition(next, i);
+            }
+
+            int previous = neighbourOf(centerPosition, -i);
+            if (i > 0 && previous >= 0 && previous < count && previous != next) {
+                onPrefetchPosition(previous, i);
+            }
+        }
+    }
+
+    /**
+     * Called while the main thread is idle for each position the ViewPager is about to need: the
+     * pages it has attached and the next one on either side. Called again as the current item
+     * changes and after the data set changes. Override to start work for those positions ahead
+     * of binding them, such as laying out their text with
+     * {@link TextLayoutCache#precompute(long, CharSequence, int)}. Only SwipeRemovalViewPager
+     * calls this.
+     *
+     * @param distance How far the position is from the current item, to prioritize by.
+     */
+    public void onPrefetchPosition(int position, int distance) {
+    }
+
+    /**
+     * Prefetched pages were bound against the old data, so they go back to the pool whenever the
+     * data set changes.
+     */
+    private void clearPrefetched() {
+        prefetchWindowCenter = NO_POSITION;
+        for (int i = prefetchedViewHolders.size() - 1; i >= 0; i--) {
+            releasePrefetched(prefetchedViewHolders.removeAt(i));
+        }
+    }
+
+    /**
+     * Prefetched ViewHolders were bound, so they are recycled like detached pages.
+     */
+    private void releasePrefetched(VH viewHolder) {
+        dispatchViewRecycled(viewHolder);
+        retainViewHolder(viewHolder);
+    }
+
+    @Nullable
+    private VH takePrefetchedViewHolder(int position, int viewType) {
+        VH viewHolder = prefetchedViewHolders.remove(position);
+        if (viewHolder == null) {
+            return null;
+        }
+
+        if (viewHolder.viewType != viewType
+                || (hasStableIds() && viewHolder.itemId != getItemId(position))) {
+            releasePrefetched(viewHolder);
+            return null;
+        }
+
+        return viewHolder;
+    }
+
+    public abstract VH onCreateViewHolder(ViewGroup container, int position, int viewType);
+
+    /**
+     * Called right after a page's View is added to the ViewPager, once it is bound.
+     */
+    public void onViewAttached(VH viewHolder) {
+    }
+
+    /**
+     * Called right after a page's View is removed from the ViewPager, before it is recycled.
+     */
+    public void onViewDetached(VH viewHolder) {
+    }
+
+    /**
+     * Called when a bound ViewHolder is about to go to the {@link RecycledViewPool} or be
+     * dropped: after its page is destroyed, or when a prefetched page is let go of without being
+     * attached. Release anything large the ViewHolder holds here (images in particular, see
+     * {@link ImageBinder#release(android.widget.ImageView)}) rather than waiting for it to be
+     * bound again.
+     */
+    public void onViewRecycled(VH viewHolder) {
+    }
+
+    private void dispatchViewRecycled(VH viewHolder) {
+        cancelScheduledBind(viewHolder);
+        onViewRecycled(viewHolder);
+    }
+
+    public abstract void onBindViewHolder(VH viewHolder, int position);
+
+    /**
+     * Binds with the payloads passed to {@link #notifyItemChanged(int, Object)} and
+     * {@link #notifyItemRangeChanged(int, int, Object)}. Override it to update only part of a page
+     * (ex. a like count) when payloads are present. The list is empty when the whole page has to
+     * be bound, which is what the default implementation does.
+     */
+    public void onBindViewHolder(VH viewHolder, int position, List<Object> payloads) {
+        onBindViewHolder(viewHolder, position);
+    }
+
+    /**
+     * Without stable IDs every page is destroyed and recreated on {@link #notifyDataSetChanged()}.
+     * With stable IDs, or after position changes have been applied to the cache, pages whose item
+     * is still in the data set keep their View and only move.
+     */
+    @Override
+    public int getItemPosition(Object object) {
+        if (!hasStableIds() && !isTrackingPositions) {
+            return POSITION_NONE;
+        }
+
+        VH viewHolder = viewHolderByView.get(object);
+        if (viewHolder == null || viewHolder.position == NO_POSITION) {
+            return POSITION_NONE;
+        }
+
+        return viewHolder.position;
+    }
+
+    /**
+     * Override and return true if {@link #getItemId(int)} returns a unique ID per item that does
+     * not change when the item moves. The adapter then keeps pages whose item is still in the data
+     * set across {@link #notifyDataSetChanged()} instead of recreating all of them.
+     */
+    public boolean hasStableIds() {
+        return false;
+    }
+
+    /**
+     * @return a stable ID for the item at the position given. Only used when
+     * {@link #hasStableIds()} returns true.
+     */
+    public long getItemId(int position) {
+        return NO_ID;
+    }
+
+    /**
+     * With stable IDs, each cached ViewHolder is looked up by its item ID and moved to the item's
+     * new position before the ViewPager asks for {@link #getItemPosition(Object)}. Only the
+     * ViewHolders that moved are rebound. An item that keeps its ID and position is not rebound,
+     * so use {@link #updateViews()} when item contents change. Pages that are animating and keep
+     * their position keep animating.
+     *
+     * Without stable IDs every page is recreated, unless a View is animating (see
+     * {@link #isViewAnimating()}): then the pages are kept where they are and rebound once the
+     * animation is over, so a discard isn't cut short.
+     */
+    @Override
+    public void notifyDataSetChanged() {
+        clearPrefetched();
+
+        if (isBatchingUpdates()) {
+            hasPendingDataSetChange = true;
+            return;
+        }
+
+        if (hasStableIds()) {
+            remapStableIds();
+        } else if (isViewAnimating) {
+            keepPagesWhileAnimating();
+            return;
+        }
+        super.notifyDataSetChanged();
+    }
+
+    /**
+     * Keeps every page at its position and flags it for a full bind, which waits for the
+     * animation to end. Any number of data set changes until then cost one bind per page. Only
+     * the pages past the new end, and those whose view type changed, are destroyed.
+     *
+     * The ViewPager still gets its pass now, since it must see the new count before the next
+     * layout.
+     */
+    private void keepPagesWhileAnimating() {
+        final int count = getCount();
+        final int size = viewHolderCache.size();
+
+        if (size > 0 && viewHolderCache.keyAt(size - 1) >= count) {
+            offsetPositionsForRemove(count, viewHolderCache.keyAt(size - 1) - count + 1);
+        }
+        markPositionsChanged(0, count, null);
+
+        hasPendingStructureChange = true;
+        dispatchPositionChanges();
+    }
+
+    private void remapStableIds() {
+        final int count = getCount();
+
+        for (int i = 0; i < viewHolderCache.size(); i++) {
+            remapScratch.add(viewHolderCache.valueAt(i));
+        }
+        viewHolderCache.clear();
+
+        for (int i = 0; i < remapScratch.size(); i++) {
+            VH viewHolder = remapScratch.get(i);
+            int oldPosition = viewHolder.position;
+            int newPosition = findPositionForItemId(viewHolder.itemId, oldPosition, count);
+
+            if (newPosition != NO_POSITION && getViewType(newPosition) != viewHolder.viewType) {
+                newPosition = NO_POSITION;
+            }
+
+            //Removed ViewHolders stay in the View index until destroyItem() recycles them
+            setPosition(viewHolder, newPosition);
+            if (newPosition == NO_POSITION) {
+                continue;
+            }
+
+            viewHolderCache.put(newPosition, viewHolder);
+
+            //The collapse animation leaves Views translated, which would double up with the move.
+            //A View animating in place is left to finish.
+            if (newPosition != oldPosition || !isAnimating(viewHolder)) {
+                resetAnimationState(viewHolder);
+            }
+
+            if (newPosition != oldPosition) {
+                bindViewHolder(viewHolder, newPosition);
+            }
+        }
+
+        remapScratch.clear();
+
+        if (inFlightDiscard != null) {
+            inFlightDiscard.remap(itemPositionLookup);
+        }
+        queuedDiscards.remap(itemPositionLookup);
+        haveDiscardsShifted = true;
+    }
+
+    /**
+     * Searches outward from the old position, since items usually only shift by a few places.
+     */
+    private int findPositionForItemId(long itemId, int hint, int count) {
+        if (itemId == NO_ID) {
+            return NO_POSITION;
+        }
+
+        for (int offset = 0; hint - offset >= 0 || hint + offset < count; offset++) {
+            int after = hint + offset;
+            if (after >= 0 && after < count && getItemId(after) == itemId) {
+                return after;
+            }
+
+            int before = hint - offset;
+            if (offset > 0 && before >= 0 && before < count && getItemId(before) == itemId) {
+                return before;
+            }
+        }
+
+        return NO_POSITION;
+    }
+
+    /**
+     * Notifies that the item at the position given changed. Only its page is rebound.
+     */
+    public void notifyItemChanged(int position) {
+        notifyItemRangeChanged(position, 1, null);
+    }
+
+    /**
+     * Notifies that the item at the position given changed. The payload is passed to
+     * {@link #onBindViewHolder(ViewHolder, int, List)} for a partial bind; null means a full bind.
+     */
+    public void notifyItemChanged(int position, @Nullable Object payload) {
+        notifyItemRangeChanged(position, 1, payload);
+    }
+
+    public void notifyItemRangeChanged(int positionStart, int itemCount) {
+        notifyItemRangeChanged(positionStart, itemCount, null);
+    }
+
+    /**
+     * Notifies that the items in the range changed. Only their pages are rebound, with the payload
+     * given (null means a full bind).
+     */
+    public void notifyItemRangeChanged(int positionStart, int itemCount, @Nullable Object payload) {
+        markPositionsChanged(positionStart, itemCount, payload);
+        dispatchPositionChanges();
+    }
+
+    public void notifyItemInserted(int position) {
+        notifyItemRangeInserted(position, 1);
+    }
+
+    /**
+     * Notifies that items were inserted. Pages after them keep their Views and move over.
+     */
+    public void notifyItemRangeInserted(int positionStart, int itemCount) {
+        offsetPositionsForInsert(positionStart, itemCount);
+        dispatchPositionChanges();
+    }
+
+    public void notifyItemRemoved(int position) {
+        notifyItemRangeRemoved(position, 1);
+    }
+
+    /**
+     * Notifies that items were removed. Their pages are destroyed and pages after them keep their
+     * Views and move over.
+     */
+    public void notifyItemRangeRemoved(int positionStart, int itemCount) {
+        offsetPositionsForRemove(positionStart, itemCount);
+        dispatchPositionChanges();
+    }
+
+    /**
+     * Notifies that an item moved. Its page keeps its View.
+     */
+    public void notifyItemMoved(int fromPosition, int toPosition) {
+        offsetPositionsForMove(fromPosition, toPosition);
+        dispatchPositionChanges();
+    }
+
+    /**
+     * Shifts cached ViewHolders at or after positionStart to make room for inserted items.
+     */
+    void offsetPositionsForInsert(int positionStart, int itemCount) {
+        int start = viewHolderCache.ceilingIndexOfKey(positionStart);
+        int end = viewHolderCache.size();
+
+        viewHolderCache.offsetKeys(start, end, itemCount);
+        syncPositions(start, end);
+        hasPendingStructureChange = true;
+
+        if (inFlightDiscard != null) {
+            inFlightDiscard.offsetForInsert(positionStart, itemCount);
+        }
+        queuedDiscards.offsetForInsert(positionStart, itemCount);
+        haveDiscardsShifted = true;
+    }
+
+    /**
+     * Drops the cached ViewHolders of removed items and shifts the ones after them. The dropped
+     * ViewHolders stay in the View index until the ViewPager destroys their pages.
+     */
+    void offsetPositionsForRemove(int positionStart, int itemCount) {
+        int start = viewHolderCache.ceilingIndexOfKey(positionStart);
+        int end = viewHolderCache.ceilingIndexOfKey(positionStart + itemCount);
+
+        for (int i = end - 1; i >= start; i--) {
+            VH viewHolder = viewHolderCache.removeAt(i);
+            viewHolder.position = NO_POSITION;
+            clearPendingBind(viewHolder);
+            cancelScheduledBind(viewHolder);
+        }
+
+        end = viewHolderCache.size();
+        viewHolderCache.offsetKeys(start, end, -itemCount);
+        syncPositions(start, end);
+        hasPendingStructureChange = true;
+
+        if (inFlightDiscard != null) {
+            inFlightDiscard.offsetForRemove(positionStart, itemCount);
+        }
+        queuedDiscards.offsetForRemove(positionStart, itemCount);
+        haveDiscardsShifted = true;
+    }
+
+    /**
+     * Moves the cached ViewHolder of one item and shifts the ones in between, keeping the
+     * ViewHolder for the moved item.
+     */
+    void offsetPositionsForMove(int fromPosition, int toPosition) {
+        if (fromPosition == toPosition) {
+            return;
+        }
+
+        VH moving = viewHolderCache.remove(fromPosition);
+
+        final int start;
+        final int end;
+        if (fromPosition < toPosition) {
+            start = viewHolderCache.ceilingIndexOfKey(fromPosition + 1);
+            end = viewHolderCache.ceilingIndexOfKey(toPosition + 1);
+            viewHolderCache.offsetKeys(start, end, -1);
+        } else {
+            start = viewHolderCache.ceilingIndexOfKey(toPosition);
+            end = viewHolderCache.ceilingIndexOfKey(fromPosition);
+            viewHolderCache.offsetKeys(start, end, 1);
+        }
+        syncPositions(start, end);
+
+        if (moving != null) {
+            viewHolderCache.put(toPosition, moving);
+            setPosition(moving, toPosition);
+        }
+        hasPendingStructureChange = true;
+
+        if (inFlightDiscard != null) {
+            inFlightDiscard.offsetForMove(fromPosition, toPosition);
+        }
+        queuedDiscards.offsetForMove(fromPosition, toPosition);
+        haveDiscardsShifted = true;
+    }
+
+    /**
+     * Flags the cached ViewHolders in the range to be rebound by
+     * {@link #dispatchPositionChanges()}. Rebinding waits until then since later changes in the
+     * same batch can still shift positions. Payloads are collected until then; a null payload
+     * turns it into a full bind.
+     */
+    void markPositionsChanged(int positionStart, int itemCount, @Nullable Object payload) {
+        int start = viewHolderCache.ceilingIndexOfKey(positionStart);
+        int end = viewHolderCache.ceilingIndexOfKey(positionStart + itemCount);
+
+        for (int i = start; i < end; i++) {
+            VH viewHolder = viewHolderCache.valueAt(i);
+            viewHolder.needsRebind = true;
+
+            if (payload == null) {
+                viewHolder.needsFullBind = true;
+            } else if (!viewHolder.needsFullBind) {
+                if (viewHolder.pendingPayloads == null) {
+                    viewHolder.pendingPayloads = new ArrayList<>();
+                }
+                viewHolder.pendingPayloads.add(payload);
+            }
+        }
+    }
+
+    private static void clearPendingBind(ViewHolder viewHolder) {
+        viewHolder.needsRebind = false;
+        viewHolder.needsFullBind = false;
+        if (viewHolder.pendingPayloads != null) {
+            viewHolder.pendingPayloads.clear();
+        }
+    }
+
+    private void syncPositions(int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            setPosition(viewHolderCache.valueAt(i), viewHolderCache.keyAt(i));
+        }
+    }
+
+    /**
+     * Moves a cached ViewHolder to a new position along with its background bind, which is
+     * matched by position without stable IDs.
+     */
+    private void setPosition(ViewHolder viewHolder, int position) {
+        viewHolder.position = position;
+
+        if (viewHolder.scheduledBind != null) {
+            ((ScheduledBind<?>) viewHolder.scheduledBind).position = position;
+        }
+    }
+
+    /**
+     * Rebinds the ViewHolders flagged by {@link #markPositionsChanged(int, int, Object)} and lets
+     * the ViewPager pick up the shifted positions. Pages of removed items, and of changed items
+     * whose view type no longer matches, are destroyed. Every other page keeps its View. If
+     * nothing moved, the ViewPager is left alone entirely.
+     */
+    void dispatchPositionChanges() {
+        clearPrefetched();
+
+        if (isBatchingUpdates()) {
+            hasPendingPositionChanges = true;
+            return;
+        }
+
+        //The ViewPager has to see the new positions right away, but rebinding can wait until
+        //the animation is over
+        if (rebindChangedPositions(isViewAnimating)) {
+            hasPendingPositionChanges = true;
+        }
+
+        if (!hasPendingStructureChange) {
+            return;
+        }
+        hasPendingStructureChange = false;
+
+        resetCollapsedViews();
+        notifyTrackedPositions();
+    }
+
+    /**
+     * Rebinds the ViewHolders flagged by {@link #markPositionsChanged(int, int, Object)}. Those
+     * whose view type no longer matches are taken out of the cache instead, so their pages are
+     * destroyed.
+     *
+     * @param deferBinds If true, the ViewHolders that still match are left flagged instead.
+     *
+     * @return True if any binds were deferred.
+     */
+    private boolean rebindChangedPositions(boolean deferBinds) {
+        boolean deferred = false;
+
+        for (int i = viewHolderCache.size() - 1; i >= 0; i--) {
+            VH viewHolder = viewHolderCache.valueAt(i);
+            int position = viewHolderCache.keyAt(i);
+
+            if (!viewHolder.needsRebind) {
+                continue;
+            }
+
+            if (getViewType(position) != viewHolder.viewType) {
+                clearPendingBind(viewHolder);
+                viewHolderCache.removeAt(i);
+                viewHolder.position = NO_POSITION;
+                hasPendingStructureChange = true;
+                continue;
+            }
+
+            if (deferBinds) {
+                deferred = true;
+                continue;
+            }
+
+            List<Object> payloads = viewHolder.needsFullBind || viewHolder.pendingPayloads == null
+                    ? Collections.emptyList()
+                    : viewHolder.pendingPayloads;
+
+            bindViewHolder(viewHolder, position, payloads);
+            clearPendingBind(viewHolder);
+        }
+
+        return deferred;
+    }
+
+    /**
+     * Starts a batch of changes. Until the matching {@link #endUpdates()},
+     * {@link #notifyDataSetChanged()} and the notifyItem methods only record what changed: no page
+     * is rebound or destroyed and the ViewPager isn't told. Batches can be nested; only the
+     * outermost one applies the changes.
+     *
+     * The ViewPager only sees the new {@link #getCount()} once they are applied, so end the batch
+     * before returning to the main loop; a layout in between throws.
+     */
+    public void beginUpdates() {
+        updateDepth++;
+    }
+
+    /**
+     * Ends a batch started by {@link #beginUpdates()}. The changes recorded are applied as one:
+     * each changed page is rebound once and the ViewPager makes a single pass, however many
+     * notifications there were.
+     */
+    public void endUpdates() {
+        if (updateDepth == 0) {
+            throw new IllegalStateException("endUpdates() called without beginUpdates()");
+        }
+
+        updateDepth--;
+        applyPendingUpdates();
+    }
+
+    /**
+     * While {@link #isViewAnimating()} without a batch, changes are applied to positions right
+     * away but the pages that only changed contents are rebound once the animation is over, so
+     * the Views being animated aren't rebound midway.
+     *
+     * @return True if notifications are being recorded rather than applied.
+     */
+    public boolean isBatchingUpdates() {
+        return updateDepth > 0;
+    }
+
+    /**
+     * Applies the changes held back since batching started, unless it still is. Rebinds stay
+     * held back for as long as a View is animating.
+     */
+    private void applyPendingUpdates() {
+        if (isBatchingUpdates()) {
+            return;
+        }
+
+        if (hasPendingDataSetChange) {
+            hasPendingDataSetChange = false;
+            hasPendingPositionChanges = false;
+            hasPendingStructureChange = false;
+
+            //Without stable IDs every page is recreated, so there is nothing worth rebinding
+            if (hasStableIds()) {
+                hasPendingPositionChanges = rebindChangedPositions(isViewAnimating);
+            } else {
+                for (int i = 0; i < viewHolderCache.size(); i++) {
+                    clearPendingBind(viewHolderCache.valueAt(i));
+                }
+            }
+            notifyDataSetChanged();
+        } else if (hasPendingPositionChanges) {
+            hasPendingPositionChanges = false;
+            dispatchPositionChanges();
+        }
+
+        onPendingUpdatesApplied();
+    }
+
+    /**
+     * Called once the changes held back by a batch have been applied, so subclasses can apply
+     * changes of their own that waited for the batch to end.
+     */
+    void onPendingUpdatesApplied() {
+    }
+
+    /**
+     * Runs the ViewPager's data set pass with {@link #getItemPosition(Object)} reporting the
+     * positions in the cache instead of POSITION_NONE.
+     */
+    private void notifyTrackedPositions() {
+        isTrackingPositions = true;
+        try {
+            super.notifyDataSetChanged();
+        } finally {
+            isTrackingPositions = false;
+        }
+    }
+
+    /**
+     * Removes a View from its container and the cache. Its ViewHolder is handed to the
+     * {@link RecycledViewPool} so it can be rebound later instead of being created again.
+     */
+    @Override
+    public void destroyItem(ViewGroup container, int position, Object view) {
+        long startNs = System.nanoTime();
+        container.removeView((View) view);
+
+        VH viewHolder = viewHolderByView.get(view);
+        if (viewHolder == null) {
+            attachedPlaceholders.remove(view);
+            return;
+        }
+
+        if (viewHolderCache.get(viewHolder.position) == viewHolder) {
+            //The item is still in the data set, so keep its state for when it comes back
+            saveItemState(viewHolder);
+            uncacheViewHolder(viewHolder.position);
+        } else {
+            viewHolderByView.remove(view);
+            viewHolder.position = NO_POSITION;
+        }
+
+        onViewDetached(viewHolder);
+
+        int viewType = viewHolder.viewType;
+        recycleViewHolder(viewHolder);
+
+        if (metricsListener != null) {
+            metricsListener.onTimedEvent(PagerMetricsListener.EVENT_DESTROY_ITEM, viewType, System.nanoTime() - startNs);
+        }
+    }
+
+    /**
+     * Every cache write goes through here and {@link #uncacheViewHolder(int)} so the reverse
+     * View to position index stays in sync.
+     */
+    private void cacheViewHolder(int position, VH viewHolder) {
+        VH previous = viewHolderCache.put(position, viewHolder);
+        if (previous != null && previous != viewHolder) {
+            viewHolderByView.remove(previous.view);
+            previous.position = NO_POSITION;
+        }
+
+        viewHolderByView.put(viewHolder.view, viewHolder);
+        viewHolder.position = position;
+    }
+
+    @Nullable
+    private VH uncacheViewHolder(int position) {
+        VH viewHolder = viewHolderCache.remove(position);
+        if (viewHolder != null) {
+            viewHolderByView.remove(viewHolder.view);
+            viewHolder.position = NO_POSITION;
+        }
+        return viewHolder;
+    }
+
+    /**
+     * Clears any leftover animation state (discarded and collapsed Views are left translated)
+     * and puts the ViewHolder in the pool.
+     */
+    private void recycleViewHolder(VH viewHolder) {
+        clearPendingBind(viewHolder);
+        dispatchViewRecycled(viewHolder);
+        resetAnimationState(viewHolder);
+        viewHolder.itemId = NO_ID;
+
+        retainViewHolder(viewHolder);
+    }
+
+    /**
+     * Puts a detached ViewHolder in the pool unless that would go over
+     * {@link #setMaxRetainedViewHolders(int)}, in which case it is dropped.
+     */
+    private void retainViewHolder(VH viewHolder) {
+        if (getRetainedViewHolderCount() < maxRetainedViewHolders) {
+            recycledViewPool.putRecycledView(viewHolder);
+        }
+    }
+
+    private int getRetainedViewHolderCount() {
+        return recycledViewPool.getRecycledViewCount() + prefetchedViewHolders.size();
+    }
+
+    private void resetAnimationState(ViewHolder viewHolder) {
+        if (viewHolder.settleAnimation != null) {
+            viewHolder.settleAnimation.cancel();
+        }
+
+        View view = viewHolder.view;
+        collapsedViews.remove(view);
+
+        //Canceling drops the listener, so the discard the View was animating for has to be
+        //finished from here or it would never end
+        if (inFlightDiscard != null && discardAnimatingViews.remove(view)) {
+            MainThreadDispatcher.repost(completeInFlightDiscard);
+        }
+
+        LayerAnimations.cancel(view);
+        view.clearAnimation();
+        view.setTranslationX(0);
+        view.setTranslationY(0);
+    }
+
+    /**
+     * Saves the state of a page that is going away into the View state LRU, keyed by its item ID.
+     */
+    private void saveItemState(VH viewHolder) {
+        if (maxSavedItemStates == 0 || viewHolder.itemId == NO_ID) {
+            return;
+        }
+
+        SparseArray<Parcelable> state = new SparseArray<>();
+        onSaveViewHolderState(viewHolder, state);
+
+        if (state.size() > 0) {
+            savedItemStates.put(viewHolder.itemId, state);
+        } else {
+            savedItemStates.remove(viewHolder.itemId);
+        }
+    }
+
+    private void restoreItemState(VH viewHolder) {
+        if (viewHolder.itemId == NO_ID) {
+            return;
+        }
+
+        SparseArray<Parcelable> state = savedItemStates.remove(viewHolder.itemId);
+        if (state != null) {
+            onRestoreViewHolderState(viewHolder, state);
+        }
+    }
+
+    /**
+     * Called when a page is destroyed while its item is still in the data set, so the state can be
+     * restored when the item is bound again, even in a different ViewHolder. Only used with
+     * {@link #hasStableIds()}, since the state is kept by item ID.
+     *
+     * The default saves the View hierarchy state of the page (scroll positions, text input and
+     * anything else Views with IDs save). Override it to save something more compact, or nothing.
+     */
+    protected void onSaveViewHolderState(VH viewHolder, SparseArray<Parcelable> state) {
+        viewHolder.view.saveHierarchyState(state);
+    }
+
+    /**
+     * Called right after {@link #onBindViewHolder(ViewHolder, int)} with the state saved by
+     * {@link #onSaveViewHolderState(ViewHolder, SparseArray)} for the item. Pages bound ahead of
+     * time get it when they are attached instead.
+     */
+    protected void onRestoreViewHolderState(VH viewHolder, SparseArray<Parcelable> state) {
+        viewHolder.view.restoreHierarchyState(state);
+    }
+
+    /**
+     * Sets how many destroyed pages' states are kept (see
+     * {@link #onSaveViewHolderState(ViewHolder, SparseArray)}). The least recently destroyed are
+     * dropped first. 0 turns saving off. The default is {@link #DEFAULT_MAX_SAVED_ITEM_STATES}.
+     */
+    public void setMaxSavedItemStates(int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("max must not be negative");
+        }
+
+        maxSavedItemStates = max;
+        if (max == 0) {
+            savedItemStates.evictAll();
+        } else {
+            savedItemStates.resize(max);
+        }
+    }
+
+    public int getMaxSavedItemStates() {
+        return maxSavedItemStates;
+    }
+
+    /**
+     * Saves the page states in the LRU along with the states of the attached pages, so they
+     * survive process death. The ViewPager calls this from its own onSaveInstanceState().
+     */
+    @Override
+    @Nullable
+    public Parcelable saveState() {
+        if (maxSavedItemStates == 0 || !hasStableIds()) {
+            return null;
+        }
+
+        Map<Long, SparseArray<Parcelable>> saved = savedItemStates.snapshot();
+        long[] itemIds = new long[saved.size() + viewHolderCache.size()];
+        Bundle bundle = new Bundle();
+        int count = 0;
+
+        //Least recently destroyed first, so restoring puts them back in the same order
+        for (Map.Entry<Long, SparseArray<Parcelable>> entry : saved.entrySet()) {
+            itemIds[count++] = entry.getKey();
+            bundle.putSparseParcelableArray(KEY_ITEM_STATE_PREFIX + entry.getKey(), entry.getValue());
+        }
+
+        //Attached pages are written straight to the Bundle, since they are still live
+        for (int i = 0; i < viewHolderCache.size(); i++) {
+            VH viewHolder = viewHolderCache.valueAt(i);
+            if (viewHolder.itemId == NO_ID) {
+                continue;
+            }
+
+            SparseArray<Parcelable> state = new SparseArray<>();
+            onSaveViewHolderState(viewHolder, state);
+            if (state.size() > 0) {
+                itemIds[count++] = viewHolder.itemId;
+                bundle.putSparseParcelableArray(KEY_ITEM_STATE_PREFIX + viewHolder.itemId, state);
+            }
+        }
+
+        if (count == 0) {
+            return null;
+        }
+
+        bundle.putLongArray(KEY_ITEM_IDS, Arrays.copyOf(itemIds, count));
+        return bundle;
+    }
+
+    /**
+     * Puts the page states from {@link #saveState()} back in the LRU. Each is restored the next
+     * time its item is bound.
+     */
+    @Override
+    public void restoreState(@Nullable Parcelable state, @Nullable ClassLoader loader) {
+        if (!(state instanceof Bundle) || maxSavedItemStates == 0) {
+            return;
+        }
+
+        Bundle bundle = (Bundle) state;
+        bundle.setClassLoader(loader);
+
+        long[] itemIds = bundle.getLongArray(KEY_ITEM_IDS);
+        if (itemIds == null) {
+            return;
+        }
+
+        for (long itemId : itemIds) {
+            SparseArray<Parcelable> itemState = bundle.getSparseParcelableArray(KEY_ITEM_STATE_PREFIX + itemId);
+            if (itemState != null) {
+                savedItemStates.put(itemId, itemState);
+            }
+        }
+    }
+
+    @Override
+    public void setPrimaryItem(ViewGroup container, int position, Object object) {
+        super.setPrimaryItem(container, position, object);
+
+        if (position != primaryPosition) {
+            primaryPosition = position;
+
+            if (bindExecutor != null && bindExecutor.getWaitingCount() > 0) {
+                bindExecutor.reprioritize(bindPrioritizer);
+            }
+        }
+    }
+
+    /**
+     * Runs the background part of a bind off the main thread, then hands its result to the
+     * ViewHolder. Call this from {@link #onBindViewHolder(ViewHolder, int)} after binding what is
+     * cheap (or a placeholder).
+     *
+     * Background binds run on {@link #BIND_THREADS} threads, those nearest the ViewPager's current
+     * item first, and are reordered as it changes. A background bind is canceled when its
+     * ViewHolder is bound again or recycled, which is also what happens when its page leaves the
+     * ViewPager's offscreen window. A result is only delivered if the ViewHolder is still bound to
+     * the same item: the same item ID with stable IDs, the same position otherwise (shifted along
+     * by the notifyItem methods). So a late result never flickers over a page that has moved on.
+     */
+    protected void scheduleBind(VH viewHolder, int position, BackgroundBind<VH, ?> bind) {
+        cancelScheduledBind(viewHolder);
+
+        if (bindExecutor == null) {
+            bindExecutor = new PriorityExecutor(BIND_THREADS);
+        }
+
+        ScheduledBind<?> scheduledBind = newScheduledBind(viewHolder, position, bind);
+        viewHolder.scheduledBind = scheduledBind;
+        bindExecutor.execute(scheduledBind, getDistanceFromPrimary(position));
+    }
+
+    private <R> ScheduledBind<R> newScheduledBind(VH viewHolder, int position, BackgroundBind<VH, R> bind) {
+        long itemId = hasStableIds() ? getItemId(position) : NO_ID;
+        return new ScheduledBind<>(viewHolder, position, itemId, bind);
+    }
+
+    private void cancelScheduledBind(ViewHolder viewHolder) {
+        PriorityExecutor.Task task = viewHolder.scheduledBind;
+        if (task == null) {
+            return;
+        }
+
+        viewHolder.scheduledBind = null;
+        ((ScheduledBind<?>) task).isCanceled = true;
+        if (bindExecutor != null) {
+            bindExecutor.remove(task);
+        }
+    }
+
+    private int getDistanceFromPrimary(int position) {
+        if (primaryPosition == NO_POSITION) {
+            return 0;
+        }
+
+        int delta = position - primaryPosition;
+        if (isLoopingActive()) {
+            delta = LoopingPagerAdapter.wrappedDelta(delta, getCount());
+        }
+        return Math.abs(delta);
+    }
+
+    /**
+     * @return True if the ViewHolder is still bound to the item the background bind was
+     * scheduled for.
+     */
+    private boolean isBoundTo(VH viewHolder, int position, long itemId) {
+        if (hasStableIds()) {
+            return viewHolder.itemId == itemId;
+        }
+        if (viewHolder.position == NO_POSITION) {
+            return prefetchedViewHolders.get(position) == viewHolder;
+        }
+        return viewHolder.position == position;
+    }
+
+    private void deliverScheduledBind(ScheduledBind<?> scheduledBind) {
+        VH viewHolder = scheduledBind.viewHolder;
+        if (scheduledBind.isCanceled || viewHolder.scheduledBind != scheduledBind) {
+            return;
+        }
+
+        viewHolder.scheduledBind = null;
+        if (isBoundTo(viewHolder, scheduledBind.position, scheduledBind.itemId)) {
+            scheduledBind.deliver();
+        }
+    }
+
+    /**
+     * One ViewHolder's background bind, queued by distance from the primary item.
+     */
+    private final class ScheduledBind<R> extends PriorityExecutor.Task {
+        final VH viewHolder;
+        int position;
+        final long itemId;
+        final BackgroundBind<VH, R> bind;
+        volatile boolean isCanceled = false;
+
+        /**
+         * Handed from the bind thread to the main thread.
+         */
+        @Nullable volatile R result;
+
+        final Runnable delivery = new Runnable() {
+            @Override
+            public void run() {
+                deliverScheduledBind(ScheduledBind.this);
+            }
+        };
+
+        ScheduledBind(VH viewHolder, int position, long itemId, BackgroundBind<VH, R> bind) {
+            this.viewHolder = viewHolder;
+            this.position = position;
+            this.itemId = itemId;
+            this.bind = bind;
+        }
+
+        @Override
+        public void run() {
+            if (isCanceled) {
+                return;
+            }
+
+            try {
+                result = bind.doInBackground();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Background bind for position " + position + " failed", e);
+                return;
+            }
+            MainThreadDispatcher.post(delivery);
+        }
+
+        @Override
+        protected void onDropped() {
+            if (viewHolder.scheduledBind == this) {
+                viewHolder.scheduledBind = null;
+            }
+        }
+
+        void deliver() {
+            R value = result;
+            result = null;
+            bind.onBindResult(viewHolder, value);
+        }
+    }
+
+    @Override
+    public boolean isViewFromObject(View view, Object object) {
+        return view == object;
+    }
+
+    public int getViewType(int position) {
+        return DEFAULT_VIEW_TYPE;
+    }
+
+    /**
+     * A non-destructive way to "notify data set changed". By default, when {@link #notifyDataSetChanged()}
+     * is called, the ViewPager will destroy all the Views and recreate them if {@link #getItemPosition(Object)}
+     * returns POSITION_NONE. This may not be desirable behavior in some cases. This method will call
+     * {@link #onBindViewHolder(ViewHolder, int)} on each of the cached ViewHolders in order to
+     * update them without destroying the Views.
+     */
+    public void updateViews() {
+        clearPrefetched();
+
+        for (int i = 0; i < viewHolderCache.size(); i++) {
+            bindViewHolder(viewHolderCache.valueAt(i), viewHolderCache.keyAt(i));
+        }
+    }
+
+    /**
+     * Returns a View for the position provided if cached. Take a look at
+     * {@link #getViewHolderAt(int)} or more details.
+     */
+    @Nullable
+    public View getViewAt(int position) {
+        VH viewHolder = getViewHolderAt(position);
+        return viewHolder == null ? null : viewHolder.view;
+    }
+
+    /**
+     * Returns a ViewHolder for the position provided if cached.
+     *
+     * Only the pages the ViewPager has attached are cached: the current page and
+     * {@link android.support.v4.view.ViewPager#getOffscreenPageLimit()} pages on either side (1 by
+     * default, so 3 pages). This is not too reliable except for getting the current View or
+     * surrounding Views in the ViewPager.
+     */
+    @Nullable
+    public VH getViewHolderAt(int position) {
+        return viewHolderCache.get(position);
+    }
+
+    /**
+     * Returns a position in the ViewPager for the View provided if cached.
+     *
+     * Only the pages the ViewPager has attached are cached: the current page and
+     * {@link android.support.v4.view.ViewPager#getOffscreenPageLimit()} pages on either side (1 by
+     * default, so 3 pages). This is not too reliable except for getting the current View or
+     * surrounding Views in the ViewPager.
+     */
+    public int getPositionForViewHolder(VH viewHolder) {
+        return getPositionForView(viewHolder.view);
+    }
+
+    /**
+     * Returns a position in the ViewPager for the View provided if cached. This is a constant
+     * time lookup, so it is safe to call from scroll listeners.
+     */
+    public int getPositionForView(@Nullable View view) {
+        if(view == null) {
+            return NO_POSITION;
+        }
+
+        VH viewHolder = viewHolderByView.get(view);
+        if(viewHolder != null && viewHolderCache.get(viewHolder.position) == viewHolder) {
+            return viewHolder.position;
+        }
+
+        /**
+         * The index can only be stale if the cache was written through getViewHolderCache(),
+         * so fall back to a scan.
+         */
+        for(int i = 0; i < viewHolderCache.size(); i++) {
+            if(viewHolderCache.valueAt(i).view.equals(view)) {
+                return viewHolderCache.keyAt(i);
+            }
+        }
+
+        return NO_POSITION;
+    }
+
+    /**
+     * @return a live Map view of the cache of ViewHolders, keyed by position. The cache itself
+     * is an {@link IntSparseArray}; this view boxes keys, so prefer {@link #getViewHolderArray()}
+     * on hot paths.
+     *
+     * This used to return a WeakHashMap. Overrides and callers that name that type need to change
+     * it to Map.
+     */
+    protected Map<Integer, VH> getViewHolderCache() {
+        return viewHolderCache.asMap();
+    }
+
+    /**
+     * @return the cache of ViewHolders, keyed by position
+     */
+    protected IntSparseArray<VH> getViewHolderArray() {
+        return viewHolderCache;
+    }
+
+    /**
+     * @return the pool detached ViewHolders are recycled into
+     */
+    public RecycledViewPool<VH> getRecycledViewPool() {
+        return recycledViewPool;
+    }
+
+    /**
+     * Sets the pool detached ViewHolders are recycled into. A pool can be shared between adapters
+     * that use the same view types.
+     */
+    public void setRecycledViewPool(RecycledViewPool<VH> recycledViewPool) {
+        this.recycledViewPool = recycledViewPool;
+    }
+
+    /**
+     * Sets the maximum number of detached ViewHolders to keep for a view type. The default is
+     * {@link RecycledViewPool#DEFAULT_MAX_RECYCLED_VIEWS}. See also
+     * {@link #setMaxRetainedViewHolders(int)}.
+     */
+    public void setMaxRecycledViews(int viewType, int max) {
+        recycledViewPool.setMaxRecycledViews(viewType, max);
+    }
+
+    /**
+     * Sets the maximum number of detached ViewHolders (pooled and prefetched) to keep across all
+     * view types, on top of the pages the ViewPager has attached. ViewHolders over the budget are
+     * dropped instead of pooled. There is no limit by default besides the per view type maximums.
+     */
+    public void setMaxRetainedViewHolders(int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("max must not be negative");
+        }
+
+        maxRetainedViewHolders = max;
+
+        int over = getRetainedViewHolderCount() - max;
+        if (over > 0) {
+            for (int i = prefetchedViewHolders.size() - 1; i >= 0 && over > 0; i--, over--) {
+                dispatchViewRecycled(prefetchedViewHolders.removeAt(i));
+            }
+            if (over > 0) {
+                recycledViewPool.trimToCount(recycledViewPool.getRecycledViewCount() - over);
+            }
+        }
+    }
+
+    public int getMaxRetainedViewHolders() {
+        return maxRetainedViewHolders;
+    }
+
+    /**
+     * Releases detached ViewHolders under memory pressure. Takes the levels of
+     * {@link ComponentCallbacks2#onTrimMemory(int)}. SwipeRemovalViewPager calls this for you.
+     * Forward your Activity's callbacks to it otherwise.
+     *
+     * Prefetched pages are always dropped. {@link ComponentCallbacks2#TRIM_MEMORY_UI_HIDDEN} only
+     * means the app went to the background, so the pool is kept for when it comes back. Otherwise,
+     * from {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_LOW} up, the whole pool is dropped too.
+     * Below that, half of it is. Attached pages are left alone; SwipeRemovalViewPager shrinks its
+     * offscreen window to release those.
+     *
+     * @return the number of ViewHolders released.
+     */
+    public int onTrimMemory(int level) {
+        int released = prefetchedViewHolders.size();
+        for (int i = released - 1; i >= 0; i--) {
+            dispatchViewRecycled(prefetchedViewHolders.removeAt(i));
+        }
+
+        if (level != ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            int keep = level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW ? 0 : recycledViewPool.getRecycledViewCount() / 2;
+            released += recycledViewPool.trimToCount(keep);
+        }
+
+        if (metricsListener != null) {
+            metricsListener.onTrimMemory(level, released);
+        }
+        return released;
+    }
+
+    /**
+     * Makes the pager wrap around from the last item to the first and back. Positions everywhere
+     * else in the adapter (the cache, callbacks, {@link #getViewAt(int)} and the rest) stay data
+     * indexes from 0 to {@link #getCount()} - 1; only the ViewPager sees virtual positions, which
+     * {@link #toDataPosition(int)} maps back. Nothing is duplicated, so looping costs no more
+     * than normal paging, and discarding collapses across the seam.
+     *
+     * Call this before the adapter is set on a SwipeRemovalViewPager. With a plain ViewPager, set
+     * {@link #getLoopingAdapter()} on it instead and start it at
+     * {@link #getLoopingStartPosition()}.
+     *
+     * The pager only loops while there are at least {@link #getMinLoopingCount()} items, so the
+     * same item is never attached twice.
+     */
+    public void setLooping(boolean looping) {
+        boolean wasActive = isLoopingActive();
+        isLooping = looping;
+
+        if (wasActive != isLoopingActive()) {
+            notifyDataSetChanged();
+        }
     }
 
-    @Override
-    public boolean isViewFromObject(View view, Object object) {
-        return view == object;
+    public boolean isLooping() {
+        return isLooping;
     }
 
-    public int getViewType(int position) {
-        return DEFAULT_VIEW_TYPE;
+    /**
+     * @return True if looping is enabled and there are enough items to loop.
+     */
+    public boolean isLoopingActive() {
+        return isLooping && getCount() >= minLoopingCount;
     }
 
     /**
-     * A non-destructive way to "notify data set changed". By default, when {@link #notifyDataSetChanged()}
-     * is called, the ViewPager will destroy all the Views and recreate them if {@link #getItemPosition(Object)}
-     * returns POSITION_NONE. This may not be desirable behavior in some cases. This method will call
-     * {@link #onBindViewHolder(ViewHolder, int)} on each of the cached ViewHolders in order to
-     * update them without destroying the Views.
+     * Set by SwipeRemovalViewPager from its offscreen page limit: every attached page must be a
+     * different item.
      */
-    public void updateViews() {
-        for (Map.Entry<Integer, VH> entry : viewHolderCache.entrySet()) {
-            onBindViewHolder(entry.getValue(), entry.getKey());
+    void setMinLoopingCount(int count) {
+        boolean wasActive = isLoopingActive();
+        minLoopingCount = Math.max(3, count);
+
+        if (wasActive != isLoopingActive()) {
+            notifyDataSetChanged();
         }
     }
 
     /**
-     * Returns a View for the position provided if cached. Take a look at
-     * {@link #getViewHolderAt(int)} or more details.
+     * @return the fewest items the pager loops with. 3 by default, and 2 * the offscreen page
+     * limit + 1 on a SwipeRemovalViewPager.
      */
-    @Nullable
-    public View getViewAt(int position) {
-        VH viewHolder = getViewHolderAt(position);
-        return viewHolder == null ? null : viewHolder.view;
+    public int getMinLoopingCount() {
+        return minLoopingCount;
     }
 
     /**
-     * Returns a ViewHolder for the position provided if cached.
-     *
-     * A limited numbers of Views are cached (default is 5), so this is not too reliable except for
-     * getting the current View or surrounding Views in the ViewPager.
+     * @return the adapter to set on a plain ViewPager for looping mode. It reports virtual
+     * positions to the ViewPager and hands data indexes to this adapter.
      */
-    @Nullable
-    public VH getViewHolderAt(int position) {
-        return viewHolderCache.get(position);
+    public PagerAdapter getLoopingAdapter() {
+        if (loopingAdapter == null) {
+            loopingAdapter = new LoopingPagerAdapter(this);
+        }
+        return loopingAdapter;
     }
 
     /**
-     * Returns a position in the ViewPager for the View provided if cached.
-     *
-     * A limited numbers of Views are cached (default is 5), so this is not too reliable except for
-     * getting the current View or surrounding Views in the ViewPager.
+     * @return the ViewPager position to start a looping pager at so it can go either way, showing
+     * the first item. 0 when not looping.
      */
-    public int getPositionForViewHolder(VH viewHolder) {
-        return getPositionForView(viewHolder.view);
+    public int getLoopingStartPosition() {
+        return isLoopingActive() ? LoopingPagerAdapter.START_POSITION : 0;
     }
 
-    public int getPositionForView(@Nullable View view) {
-        if(view == null) {
-            return NO_POSITION;
-        }
-
-        for(Map.Entry<Integer, VH> entry : viewHolderCache.entrySet()) {
-            if(entry.getValue().view.equals(view)) {
-                return entry.getKey();
-
-            }
+    /**
+     * @return the data index shown at the ViewPager position given. The same position when not
+     * looping.
+     */
+    public int toDataPosition(int pagerPosition) {
+        if (loopingAdapter == null) {
+            return pagerPosition;
         }
-
-        return NO_POSITION;
+        return loopingAdapter.toDataPosition(pagerPosition);
     }
 
     /**
-     * @return the cache of ViewHolders
+     * @return the ViewPager position showing the data index given that is closest to the
+     * ViewPager position given. The data index itself when not looping.
      */
-    protected WeakHashMap<Integer, VH> getViewHolderCache() {
-        return viewHolderCache;
+    public int toPagerPosition(int dataPosition, int nearPagerPosition) {
+        if (loopingAdapter == null) {
+            return dataPosition;
+        }
+        return loopingAdapter.toPagerPosition(dataPosition, nearPagerPosition);
     }
 
     /**
@@ -182,11 +1950,16 @@ abstract public class DynamicPagerAdapter<VH extends DynamicPagerAdapter.ViewHol
     }
 
     /**
-     * This is only used as a state holder. The DynamicPagerAdapter does not change behavior
-     * due to this variable.
+     * Used by SwipeRemovalViewPager while it settles a page the user let go of. Discards requested
+     * in the meantime are queued and start once this is set back to false.
      */
     public void setViewAnimating(boolean viewAnimating) {
         isViewAnimating = viewAnimating;
+
+        if (!viewAnimating && inFlightDiscard == null) {
+            applyPendingUpdates();
+            startNextQueuedDiscard();
+        }
     }
 
     /**
@@ -206,24 +1979,71 @@ abstract public class DynamicPagerAdapter<VH extends DynamicPagerAdapter.ViewHol
      * This will fade out the View passed in, then call collapseViewsIn() to finish the animation
      * (resembles a deletion).
      *
+     * If another discard is animating, this one is queued and starts when that one is finished.
+     * Callbacks are always delivered in the order the discards were requested (see
+     * {@link #fastForwardDiscards()}). Queued positions follow the notifyItem methods, and
+     * {@link #notifyDataSetChanged()} too with stable IDs. Otherwise they are shifted down for the
+     * items removed by the discards before them.
+     *
      * @param view The view to hide and collapse around. You will usually want to use the current
      * item of the ViewPager.
      *
-     * @return True if a discard animation was started for the View.
+     * @return True if a discard animation was started or queued for the View.
      */
     public boolean discardView(@Nullable final View view) {
         if (view == null) {
             return false;
         }
 
-        isViewAnimating = startDiscardAnimation(view, new SimpleAnimationListener() {
-            @Override
-            public void onAnimationEnd(Animation animation) {
-                collapseViewsIn(view);
+        int position = getPositionForView(view);
+
+        if (isViewAnimating) {
+            if (position == NO_POSITION) {
+                return false;
             }
-        });
 
-        return isViewAnimating;
+            DiscardQueue.Entry<View> discard = queuedDiscards.obtain();
+            discard.setSingle(position);
+            recordItemIds(discard);
+            queuedDiscards.add(discard);
+            return true;
+        }
+
+        DiscardQueue.Entry<View> discard = queuedDiscards.obtain();
+        discard.setSingle(position);
+        recordItemIds(discard);
+
+        if (!startSingleDiscard(discard, view)) {
+            queuedDiscards.recycle(discard);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean startSingleDiscard(DiscardQueue.Entry<View> discard, View view) {
+        discard.view = view;
+        inFlightDiscard = discard;
+        isViewAnimating = true;
+        isCollapsing = false;
+        pendingDiscardAnimations = 1;
+        discardAnimatingViews.add(view);
+
+        discardStartNs = System.nanoTime();
+        if (dispatchDiscardAnimation(view)) {
+            return true;
+        }
+
+        inFlightDiscard = null;
+        isViewAnimating = false;
+        pendingDiscardAnimations = 0;
+        discardAnimatingViews.clear();
+        return false;
+    }
+
+    private void reportAnimation(int event, long startNs) {
+        if (metricsListener != null) {
+            metricsListener.onTimedEvent(event, DEFAULT_VIEW_TYPE, System.nanoTime() - startNs);
+        }
     }
 
     /**
@@ -231,9 +2051,12 @@ abstract public class DynamicPagerAdapter<VH extends DynamicPagerAdapter.ViewHol
      * You can override it to use your own animation if you desire. Remember to 1) set the animation
      * listener so the adapter will be updated and 2) start the animation.
      *
+     * The default animation runs on a hardware layer through {@link LayerAnimations}, so it keeps
+     * running smoothly while pages are bound on the UI thread.
+     *
      * @return True if the a discard animation was started for the View.
      */
-    protected boolean startDiscardAnimation(@Nullable View view, Animation.AnimationListener animationListener) {
+    protected boolean startDiscardAnimation(@Nullable View view, ViewPropertyAnimatorListener animationListener) {
         if (view == null) {
             return false;
         }
@@ -249,17 +2072,29 @@ abstract public class DynamicPagerAdapter<VH extends DynamicPagerAdapter.ViewHol
             transY = -view.getHeight() * 2;
         }
 
-        
-        RealTranslateAnimation translateAnimation = new RealTranslateAnimation(view, 0, 0, 0, transY);
-        translateAnimation.setDuration(400);
-        translateAnimation.setFillAfter(true);
-        translateAnimation.setInterpolator(new AccelerateInterpolator());
-        translateAnimation.setAnimationListener(animationListener);
-
-        view.startAnimation(translateAnimation);
+        LayerAnimations.translateTo(view, view.getTranslationX(), view.getTranslationY() + transY,
+                400, DISCARD_INTERPOLATOR, animationListener);
         return true;
     }
 
+    /**
+     * @deprecated Override {@link #startDiscardAnimation(View, ViewPropertyAnimatorListener)}
+     * instead. Overrides of this method are still called in its place. The default runs the same
+     * animation and forwards the end of it to the listener given.
+     */
+    @Deprecated
+    protected boolean startDiscardAnimation(@Nullable View view, Animation.AnimationListener animationListener) {
+        return startDiscardAnimation(view, new AnimationListenerBridge(animationListener));
+    }
+
+    private boolean dispatchDiscardAnimation(View view) {
+        checkLegacyAnimations();
+        if (overridesLegacyDiscardAnimation) {
+            return startDiscardAnimation(view, legacyDiscardAnimationListener);
+        }
+        return startDiscardAnimation(view, discardAnimationListener);
+    }
+
     /**
      * This will look for views to the right, then the left, to animate to the position of the View
      * passed in. This is used mainly for discardView(), but it is being exposed for gesture dismissals.
@@ -276,86 +2111,184 @@ abstract public class DynamicPagerAdapter<VH extends DynamicPagerAdapter.ViewHol
 
         int position = getPositionForView(view);
 
+        //A gesture dismissal starts its discard here, discardView() started it already and has
+        //kept its position up to date
+        DiscardQueue.Entry<View> discard = inFlightDiscard;
+        if (discard == null) {
+            discard = queuedDiscards.obtain();
+            discard.setSingle(position);
+            recordItemIds(discard);
+            inFlightDiscard = discard;
+        }
+        discard.view = view;
+
+        isViewAnimating = true;
+        isCollapsing = true;
+        pendingDiscardAnimations = 0;
+
         /**
          * Stop if a position can't be found
          */
         if(position == NO_POSITION) {
-            if(callbacks != null) {
-                isViewAnimating = false;
-                callbacks.onDiscardFinished(position, view);
-            }
+            completeDiscard(discard);
             return false;
         }
 
         /**
-         * Get next view (check right first, then left)
+         * Get next view (check right first, then left). When looping, the neighbours of the
+         * first and last items are across the seam.
          */
-        View nextView = getViewAt(position+1);
-        View farNextView = getViewAt(position+2);
+        View nextView = getViewAt(neighbourOf(position, 1));
+        View farNextView = getViewAt(neighbourOf(position, 2));
 
         if(nextView == null) {
-            nextView = getViewAt(position-1);
-            farNextView = getViewAt(position-2);
+            nextView = getViewAt(neighbourOf(position, -1));
+            farNextView = getViewAt(neighbourOf(position, -2));
         }
 
         /**
          * If it is still null, just discard the current View.
          */
         if(nextView == null) {
-            if(callbacks != null) {
-                isViewAnimating = false;
-                callbacks.onDiscardFinished(position, view);
-            }
+            completeDiscard(discard);
             return false;
         }
 
         /**
          * Start collapsing animations
          */
-        final int pos = position;
-
-        startNextViewAnimation(position, view, nextView, new SimpleAnimationListener() {
-            @Override
-            public void onAnimationEnd(Animation animation) {
-
-                /**
-                 * Notify the callback on the next main loop (prevents screen flash)
-                 */
-                if(callbacks != null) {
-                    new Handler(Looper.getMainLooper()).post(new Runnable() {
-                        @Override
-                        public void run() {
-                            isViewAnimating = false;
-                            callbacks.onDiscardFinished(pos, view);
-                        }
-                    });
-                }
-            }
-        });
+        collapseStartNs = System.nanoTime();
+        pendingDiscardAnimations = 1;
+        addCollapsingView(nextView);
+        dispatchNextViewAnimation(position, view, nextView);
 
         if(farNextView != null) {
+            addCollapsingView(farNextView);
             startFarNextViewAnimation(position, view, nextView, farNextView);
         }
 
-        isViewAnimating = true;
         return true;
     }
 
+    /**
+     * @return the position the distance given away from the position given, wrapped around the
+     * loop in looping mode, or {@link #NO_POSITION} if that would come back around to the pages
+     * on the other side.
+     */
+    private int neighbourOf(int position, int distance) {
+        if (!isLoopingActive()) {
+            return position + distance;
+        }
+
+        int count = getCount();
+        if (Math.abs(distance) * 2 >= count) {
+            return NO_POSITION;
+        }
+        return LoopingPagerAdapter.mod(position + distance, count);
+    }
+
     /**
      * This method should be used to start the animation for the next View to move in after the
      * current view has been discarded. You can override it in order to create your own animation if you desire.
      * Remember to 1) set the animation listener so the adapter will be updated and 2) start the animation.
      */
-    protected void startNextViewAnimation(final int currentPos, View currentView, View nextView, Animation.AnimationListener animationListener) {
+    protected void startNextViewAnimation(final int currentPos, View currentView, View nextView, ViewPropertyAnimatorListener animationListener) {
 
         float toXDelta = currentView.getX() - nextView.getX();
 
-        TranslateAnimation nextViewAnimation = new TranslateAnimation(0, toXDelta, 0, 0);
-        nextViewAnimation.setDuration(400);
-        nextViewAnimation.setFillAfter(true);
-        nextViewAnimation.setAnimationListener(animationListener);
+        LayerAnimations.translateTo(nextView, nextView.getTranslationX() + toXDelta, nextView.getTranslationY(),
+                400, COLLAPSE_INTERPOLATOR, animationListener);
+    }
+
+    /**
+     * @deprecated Override
+     * {@link #startNextViewAnimation(int, View, View, ViewPropertyAnimatorListener)} instead.
+     * Overrides of this method are still called in its place. The default runs the same animation
+     * and forwards the end of it to the listener given.
+     */
+    @Deprecated
+    protected void startNextViewAnimation(final int currentPos, View currentView, View nextView, Animation.AnimationListener animationListener) {
+        startNextViewAnimation(currentPos, currentView, nextView, new AnimationListenerBridge(animationListener));
+    }
+
+    private void dispatchNextViewAnimation(int currentPos, View currentView, View nextView) {
+        checkLegacyAnimations();
+        if (overridesLegacyNextViewAnimation) {
+            startNextViewAnimation(currentPos, currentView, nextView, legacyCollapseAnimationListener);
+        } else {
+            startNextViewAnimation(currentPos, currentView, nextView, collapseAnimationListener);
+        }
+    }
+
+    private void checkLegacyAnimations() {
+        if (hasCheckedLegacyAnimations) {
+            return;
+        }
+
+        overridesLegacyDiscardAnimation = isOverridden("startDiscardAnimation",
+                View.class, Animation.AnimationListener.class);
+        overridesLegacyNextViewAnimation = isOverridden("startNextViewAnimation",
+                int.class, View.class, View.class, Animation.AnimationListener.class);
+        hasCheckedLegacyAnimations = true;
+    }
+
+    private boolean isOverridden(String name, Class<?>... parameterTypes) {
+        for (Class<?> type = getClass(); type != DynamicPagerAdapter.class; type = type.getSuperclass()) {
+            try {
+                type.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException e) {
+                //Not declared at this level, or renamed by obfuscation
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ends an {@link Animation.AnimationListener} given to a deprecated animation hook when the
+     * animation the default hook starts ends.
+     */
+    private static final class AnimationListenerBridge extends ViewPropertyAnimatorListenerAdapter {
+        private final Animation.AnimationListener listener;
+
+        AnimationListenerBridge(Animation.AnimationListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onAnimationStart(View view) {
+            listener.onAnimationStart(null);
+        }
+
+        @Override
+        public void onAnimationEnd(View view) {
+            listener.onAnimationEnd(null);
+        }
+    }
+
+    /**
+     * Hands the end of an animation started by a deprecated hook override to the listener the
+     * adapter counts its animations with.
+     */
+    private static final class LegacyAnimationListener implements Animation.AnimationListener {
+        private final ViewPropertyAnimatorListener listener;
+
+        LegacyAnimationListener(ViewPropertyAnimatorListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onAnimationStart(Animation animation) {
+        }
+
+        @Override
+        public void onAnimationEnd(Animation animation) {
+            listener.onAnimationEnd(null);
+        }
 
-        nextView.startAnimation(nextViewAnimation);
+        @Override
+        public void onAnimationRepeat(Animation animation) {
+        }
     }
 
     /**
@@ -368,17 +2301,324 @@ abstract public class DynamicPagerAdapter<VH extends DynamicPagerAdapter.ViewHol
         //Same translation distance as nextView
         float toXDelta = currentView.getX() - nextView.getX();
 
-        TranslateAnimation farNextViewAnimation = new TranslateAnimation(0, toXDelta, 0, 0);
-        farNextViewAnimation.setDuration(400);
-        farNextViewAnimation.setFillAfter(true);
+        LayerAnimations.translateTo(farNextView, farNextView.getTranslationX() + toXDelta, farNextView.getTranslationY(),
+                400, COLLAPSE_INTERPOLATOR, null);
+    }
+
+    /**
+     * Discards every position given at once: the Views of all of them that are cached play their
+     * discard animations together, then the surviving Views collapse into place in a single
+     * pass. Positions that aren't cached are discarded without an animation.
+     *
+     * If the callbacks are {@link BatchCallbacks}, they are told about all of the positions in one
+     * call so the data set can be changed once. Otherwise
+     * {@link Callbacks#onDiscardFinished(int, View)} is called for each position, from the
+     * highest to the lowest so earlier positions stay valid while removing.
+     *
+     * Like {@link #discardView(View)}, this is queued if another discard is animating.
+     *
+     * @param positions Out of range and duplicate positions are ignored.
+     *
+     * @return True if anything is being discarded or was queued.
+     */
+    public boolean discardPositions(int[] positions) {
+        int count = sortValidPositions(positions);
+        if (count == 0) {
+            return false;
+        }
+
+        DiscardQueue.Entry<View> discard = queuedDiscards.obtain();
+        discard.setBatch(positionScratch, count);
+        recordItemIds(discard);
+
+        if (isViewAnimating) {
+            queuedDiscards.add(discard);
+        } else {
+            startBatchDiscard(discard);
+        }
+        return true;
+    }
+
+    /**
+     * With stable IDs, queued positions are found again by their item IDs after a data set change.
+     */
+    private void recordItemIds(DiscardQueue.Entry<View> discard) {
+        if (!hasStableIds()) {
+            return;
+        }
+
+        final int count = getCount();
+        for (int i = 0; i < discard.size(); i++) {
+            int position = discard.get(i);
+            if (position >= 0 && position < count) {
+                discard.setItemId(i, getItemId(position));
+            }
+        }
+    }
+
+    /**
+     * Sorts the valid positions given into {@link #positionScratch} without duplicates.
+     *
+     * @return the number of positions.
+     */
+    private int sortValidPositions(int[] positions) {
+        if (positionScratch.length < positions.length) {
+            positionScratch = new int[positions.length];
+        }
+
+        System.arraycopy(positions, 0, positionScratch, 0, positions.length);
+        Arrays.sort(positionScratch, 0, positions.length);
+
+        final int count = getCount();
+        int size = 0;
+        for (int i = 0; i < positions.length; i++) {
+            int position = positionScratch[i];
+            if (position >= 0 && position < count && (size == 0 || positionScratch[size - 1] != position)) {
+                positionScratch[size++] = position;
+            }
+        }
+        return size;
+    }
+
+    private void startBatchDiscard(DiscardQueue.Entry<View> discard) {
+        inFlightDiscard = discard;
+        isViewAnimating = true;
+        isCollapsing = false;
+        pendingDiscardAnimations = 0;
+        discardStartNs = System.nanoTime();
+
+        for (int i = 0; i < discard.size(); i++) {
+            VH viewHolder = viewHolderCache.get(discard.get(i));
+            if (viewHolder == null) {
+                continue;
+            }
+
+            pendingDiscardAnimations++;
+            discardAnimatingViews.add(viewHolder.view);
+
+            if (!dispatchDiscardAnimation(viewHolder.view)) {
+                pendingDiscardAnimations--;
+                discardAnimatingViews.remove(discardAnimatingViews.size() - 1);
+            }
+        }
+
+        if (pendingDiscardAnimations == 0) {
+            collapseSurvivors(discard);
+        }
+    }
+
+    /**
+     * Slides every cached surviving View to where it will be once the victims are removed,
+     * relative to the item the ViewPager will show afterwards.
+     */
+    private void collapseSurvivors(DiscardQueue.Entry<View> discard) {
+        final int newCount = getCount() - discard.size();
+        final float pageStride = getPageStride();
+
+        isCollapsing = true;
+        pendingDiscardAnimations = 0;
+        collapseStartNs = System.nanoTime();
+
+        //In looping mode, the pager keeps its current item and the loop closes around it instead
+        if (newCount > 0 && pageStride != 0 && primaryPosition != NO_POSITION && !isLoopingActive()) {
+            //Mirrors how the ViewPager picks its current item after the data set changes
+            int newPrimaryPosition;
+            if (hasStableIds() && discard.indexOf(primaryPosition) < 0) {
+                newPrimaryPosition = primaryPosition - discard.countBefore(primaryPosition);
+            } else {
+                newPrimaryPosition = Math.min(primaryPosition, newCount - 1);
+            }
+
+            for (int i = 0; i < viewHolderCache.size(); i++) {
+                int position = viewHolderCache.keyAt(i);
+                if (discard.indexOf(position) >= 0) {
+                    continue;
+                }
+
+                int newPosition = position - discard.countBefore(position);
+                int pages = (newPosition - newPrimaryPosition) - (position - primaryPosition);
+                if (pages == 0) {
+                    continue;
+                }
+
+                View view = viewHolderCache.valueAt(i).view;
+                pendingDiscardAnimations++;
+                addCollapsingView(view);
+                LayerAnimations.translateTo(view, view.getTranslationX() + pages * pageStride, view.getTranslationY(),
+                        400, COLLAPSE_INTERPOLATOR, collapseAnimationListener);
+            }
+        }
+
+        if (pendingDiscardAnimations == 0) {
+            MainThreadDispatcher.repost(completeInFlightDiscard);
+        }
+    }
+
+    private void addCollapsingView(View view) {
+        discardAnimatingViews.add(view);
+        if (!collapsedViews.contains(view)) {
+            collapsedViews.add(view);
+        }
+    }
+
+    /**
+     * Takes the translation off the Views a finished collapse slid over, right before the
+     * ViewPager moves them to the positions they slid to. Views still sliding are left alone.
+     */
+    private void resetCollapsedViews() {
+        for (int i = collapsedViews.size() - 1; i >= 0; i--) {
+            View view = collapsedViews.get(i);
+            if (isDiscardAnimating(view)) {
+                continue;
+            }
+
+            view.setTranslationX(0);
+            collapsedViews.remove(i);
+        }
+    }
+
+    private boolean isDiscardAnimating(View view) {
+        return inFlightDiscard != null && discardAnimatingViews.contains(view);
+    }
+
+    private boolean isAnimating(ViewHolder viewHolder) {
+        return isDiscardAnimating(viewHolder.view)
+                || (viewHolder.settleAnimation != null && viewHolder.settleAnimation.isRunning());
+    }
+
+    /**
+     * @return the distance between the left edges of neighbouring pages, measured from the cached
+     * Views, or 0 if there is nothing to measure.
+     */
+    private float getPageStride() {
+        int size = viewHolderCache.size();
+        if (size == 0) {
+            return 0;
+        }
+
+        int firstPosition = viewHolderCache.keyAt(0);
+        int lastPosition = viewHolderCache.keyAt(size - 1);
+        View first = viewHolderCache.valueAt(0).view;
+
+        if (firstPosition == lastPosition) {
+            return first.getWidth();
+        }
+
+        View last = viewHolderCache.valueAt(size - 1).view;
+        return (float) (last.getLeft() - first.getLeft()) / (lastPosition - firstPosition);
+    }
+
+    /**
+     * Delivers the callbacks of a discard, then starts the next queued one.
+     */
+    private void completeDiscard(DiscardQueue.Entry<View> discard) {
+        if (discard == inFlightDiscard) {
+            inFlightDiscard = null;
+            isViewAnimating = false;
+            isCollapsing = false;
+            pendingDiscardAnimations = 0;
+            discardAnimatingViews.clear();
+        }
+
+        //Whatever the callbacks notify is applied in one pass along with any rebinds held back
+        //during the animation, before the next discard looks up its Views. An empty discard's
+        //items were removed while it was animating, so there is nothing to tell.
+        haveDiscardsShifted = false;
+        updateDepth++;
+        try {
+            if (discard.size() > 0) {
+                dispatchDiscardFinished(discard);
+            }
+        } finally {
+            updateDepth--;
+        }
+
+        //Unless the callbacks notified granular changes, which shift the queued positions
+        //themselves, assume they removed the discarded items
+        if (!haveDiscardsShifted) {
+            queuedDiscards.removeDiscarded(discard);
+        }
+        applyPendingUpdates();
+
+        queuedDiscards.recycle(discard);
+        startNextQueuedDiscard();
+    }
+
+    private void dispatchDiscardFinished(DiscardQueue.Entry<View> discard) {
+        if (discard.isBatch() && callbacks instanceof BatchCallbacks) {
+            ((BatchCallbacks) callbacks).onDiscardFinished(discard.toArray());
+        } else if (discard.isBatch() && callbacks != null) {
+            for (int i = discard.size() - 1; i >= 0; i--) {
+                callbacks.onDiscardFinished(discard.get(i), getViewAt(discard.get(i)));
+            }
+        } else if (callbacks != null) {
+            callbacks.onDiscardFinished(discard.get(0), discard.view);
+        }
+    }
+
+    private void startNextQueuedDiscard() {
+        while (!isViewAnimating && !queuedDiscards.isEmpty()) {
+            DiscardQueue.Entry<View> discard = queuedDiscards.poll();
+
+            if (isFastForwarding) {
+                discard.view = discard.isBatch() ? null : getViewAt(discard.get(0));
+                completeDiscard(discard);
+            } else if (discard.isBatch()) {
+                startBatchDiscard(discard);
+            } else {
+                View view = getViewAt(discard.get(0));
+                if (view == null || !startSingleDiscard(discard, view)) {
+                    //Not attached, so there is nothing to animate
+                    discard.view = view;
+                    completeDiscard(discard);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ends the discard that is animating right away, along with every queued one, and delivers
+     * their callbacks in order before returning. SwipeRemovalViewPager calls this when a new touch
+     * starts, so the user can keep swiping pages away without waiting for the animations.
+     */
+    public void fastForwardDiscards() {
+        isFastForwarding = true;
+        try {
+            if (inFlightDiscard != null) {
+                MainThreadDispatcher.remove(completeInFlightDiscard);
+                cancelDiscardAnimations();
+                completeDiscard(inFlightDiscard);
+            } else if (!isViewAnimating) {
+                startNextQueuedDiscard();
+            }
+        } finally {
+            isFastForwarding = false;
+        }
+    }
 
-        farNextView.startAnimation(farNextViewAnimation);
+    private void cancelDiscardAnimations() {
+        for (int i = 0; i < discardAnimatingViews.size(); i++) {
+            View view = discardAnimatingViews.get(i);
+            LayerAnimations.cancel(view);
+            view.clearAnimation();
+        }
     }
 
     public interface Callbacks {
         void onDiscardFinished(int position, View view);
     }
 
+    /**
+     * Callbacks that also get a single call for {@link #discardPositions(int[])}.
+     */
+    public interface BatchCallbacks extends Callbacks {
+        /**
+         * @param positions The discarded positions in ascending order. Remove all of them, then
+         *                  notify the adapter once.
+         */
+        void onDiscardFinished(int[] positions);
+    }
+
     public void setCallbacks(@Nullable Callbacks callbacks) {
         this.callbacks = callbacks;
     }
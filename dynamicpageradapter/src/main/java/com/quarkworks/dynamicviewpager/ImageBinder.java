@@ -0,0 +1,289 @@
+package com.quarkworks.dynamicviewpager;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+import android.view.View;
+import android.widget.ImageView;
+
+import com.quarkworks.dynamicviewpager.helpers.PriorityExecutor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Binds images to the ImageViews of pages, meant to be used from a DynamicPagerAdapter:
+ * <ul>
+ *     <li>Images are decoded on a small background pool, downsampled to the ImageView's measured
+ *     size rather than at full resolution.</li>
+ *     <li>Decodes reuse the memory of recycled images from a {@link BitmapPool}.</li>
+ *     <li>Decodes for the current position go first, then the adjacent ones, and so on (see
+ *     {@link #setCurrentPosition(int)}).</li>
+ *     <li>{@link #release(ImageView)}, called from
+ *     {@link DynamicPagerAdapter#onViewRecycled(DynamicPagerAdapter.ViewHolder)}, puts a page's
+ *     image back in the pool instead of leaving it pinned until the page is bound again.</li>
+ * </ul>
+ *
+ * Everything but decoding happens on the main thread.
+ */
+public class ImageBinder {
+    private static final String TAG = ImageBinder.class.getSimpleName();
+
+    private static final int DECODE_THREADS = 2;
+
+    /**
+     * Opens the encoded image, for example from a file, a content Uri or the network cache. Called
+     * twice per decode on a background thread: once to read the size, once to decode.
+     */
+    public interface Source {
+        @WorkerThread
+        InputStream open() throws IOException;
+    }
+
+    private final BitmapPool bitmapPool;
+    private final PriorityExecutor decodeExecutor = new PriorityExecutor(DECODE_THREADS);
+    private final WeakHashMap<ImageView, Request> requests = new WeakHashMap<>();
+
+    private Bitmap.Config config = Bitmap.Config.ARGB_8888;
+    private int currentPosition = 0;
+
+    private final PriorityExecutor.Prioritizer distancePrioritizer = new PriorityExecutor.Prioritizer() {
+        @Override
+        public int getPriority(PriorityExecutor.Task task) {
+            return priorityOf(((Request) task).position);
+        }
+    };
+
+    public ImageBinder() {
+        this(new BitmapPool());
+    }
+
+    /**
+     * @param bitmapPool Can be shared between binders.
+     */
+    public ImageBinder(BitmapPool bitmapPool) {
+        this.bitmapPool = bitmapPool;
+    }
+
+    public BitmapPool getBitmapPool() {
+        return bitmapPool;
+    }
+
+    /**
+     * Sets the config images are decoded with. ARGB_8888 by default; RGB_565 halves the memory of
+     * opaque images.
+     */
+    public void setConfig(Bitmap.Config config) {
+        this.config = config;
+    }
+
+    /**
+     * Decodes the image for the position given into the ImageView, replacing whatever this binder
+     * put in it before. The decode starts once the ImageView has been measured.
+     */
+    public void bind(ImageView imageView, Source source, int position) {
+        release(imageView);
+
+        Request request = new Request(imageView, source, position);
+        requests.put(imageView, request);
+
+        if (imageView.getWidth() > 0 && imageView.getHeight() > 0) {
+            submit(request, imageView);
+        } else {
+            imageView.addOnLayoutChangeListener(request);
+        }
+    }
+
+    /**
+     * Cancels the ImageView's decode and puts its image back in the pool. Call this from
+     * {@link DynamicPagerAdapter#onViewRecycled(DynamicPagerAdapter.ViewHolder)}.
+     */
+    public void release(ImageView imageView) {
+        Request request = requests.remove(imageView);
+        if (request == null) {
+            return;
+        }
+
+        request.isCanceled = true;
+        decodeExecutor.remove(request);
+        imageView.removeOnLayoutChangeListener(request);
+
+        if (request.bitmap != null) {
+            imageView.setImageDrawable(null);
+            bitmapPool.put(request.bitmap);
+            request.bitmap = null;
+        }
+    }
+
+    /**
+     * Sets the position decodes are prioritized around, usually the ViewPager's current item
+     * from {@link DynamicPagerAdapter#setPrimaryItem}. Waiting decodes are reordered.
+     */
+    public void setCurrentPosition(int position) {
+        if (position == currentPosition) {
+            return;
+        }
+        currentPosition = position;
+        decodeExecutor.reprioritize(distancePrioritizer);
+    }
+
+    private int priorityOf(int position) {
+        return Math.abs(position - currentPosition);
+    }
+
+    private void submit(Request request, ImageView imageView) {
+        request.width = imageView.getWidth();
+        request.height = imageView.getHeight();
+        decodeExecutor.execute(request, priorityOf(request.position));
+    }
+
+    private void deliver(Request request) {
+        Bitmap bitmap = request.decoded;
+        request.decoded = null;
+
+        ImageView imageView = request.imageView.get();
+        if (request.isCanceled || imageView == null || requests.get(imageView) != request) {
+            bitmapPool.put(bitmap);
+            return;
+        }
+
+        if (bitmap != null) {
+            request.bitmap = bitmap;
+            imageView.setImageBitmap(bitmap);
+        }
+    }
+
+    @WorkerThread
+    @Nullable
+    private Bitmap decode(Request request) {
+        try {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            decodeStream(request.source, options);
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                return null;
+            }
+
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, request.width, request.height);
+            options.inPreferredConfig = config;
+
+            if (BitmapPool.canReuseBitmaps()) {
+                options.inMutable = true;
+
+                int width = (options.outWidth + options.inSampleSize - 1) / options.inSampleSize;
+                int height = (options.outHeight + options.inSampleSize - 1) / options.inSampleSize;
+                options.inBitmap = bitmapPool.get(width * height * getBytesPerPixel(config));
+            }
+
+            Bitmap inBitmap = options.inBitmap;
+            if (inBitmap != null) {
+                try {
+                    return decodeStream(request.source, options);
+                } catch (IllegalArgumentException e) {
+                    //The pooled Bitmap couldn't be decoded into, so it goes back and this allocates
+                    options.inBitmap = null;
+                    bitmapPool.put(inBitmap);
+                } catch (IOException e) {
+                    bitmapPool.put(inBitmap);
+                    throw e;
+                }
+            }
+            return decodeStream(request.source, options);
+        } catch (IOException | IllegalArgumentException e) {
+            Log.w(TAG, "Decoding the image for position " + request.position + " failed", e);
+            return null;
+        }
+    }
+
+    @WorkerThread
+    @Nullable
+    private static Bitmap decodeStream(Source source, BitmapFactory.Options options) throws IOException {
+        InputStream inputStream = source.open();
+        try {
+            return BitmapFactory.decodeStream(inputStream, null, options);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * @return the largest power of two to divide the image size by that still covers the target
+     * size in both dimensions.
+     */
+    static int calculateInSampleSize(int width, int height, int targetWidth, int targetHeight) {
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= targetWidth && height / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static int getBytesPerPixel(Bitmap.Config config) {
+        return config == Bitmap.Config.RGB_565 ? 2 : 4;
+    }
+
+    /**
+     * One ImageView's decode, queued by distance from the current position. The ImageView is only
+     * weakly held, since Requests are the values of the WeakHashMap keyed by it.
+     */
+    private class Request extends PriorityExecutor.Task implements View.OnLayoutChangeListener {
+        final WeakReference<ImageView> imageView;
+        final Source source;
+        final int position;
+
+        int width;
+        int height;
+        volatile boolean isCanceled = false;
+
+        /**
+         * Handed from the decode thread to the main thread.
+         */
+        @Nullable volatile Bitmap decoded;
+
+        /**
+         * The image shown, once delivered.
+         */
+        @Nullable Bitmap bitmap;
+
+        final Runnable delivery = new Runnable() {
+            @Override
+            public void run() {
+                deliver(Request.this);
+            }
+        };
+
+        Request(ImageView imageView, Source source, int position) {
+            this.imageView = new WeakReference<>(imageView);
+            this.source = source;
+            this.position = position;
+        }
+
+        @Override
+        public void run() {
+            if (isCanceled) {
+                return;
+            }
+
+            decoded = decode(this);
+            MainThreadDispatcher.post(delivery);
+        }
+
+        @Override
+        public void onLayoutChange(View v, int left, int top, int right, int bottom,
+                                   int oldLeft, int oldTop, int oldRight, int oldBottom) {
+            if (right - left <= 0 || bottom - top <= 0) {
+                return;
+            }
+
+            v.removeOnLayoutChangeListener(this);
+            if (!isCanceled) {
+                submit(this, (ImageView) v);
+            }
+        }
+    }
+}
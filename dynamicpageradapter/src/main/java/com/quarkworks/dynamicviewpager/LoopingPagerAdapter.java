@@ -0,0 +1,219 @@
+package com.quarkworks.dynamicviewpager;
+
+import android.database.DataSetObserver;
+import android.os.Bundle;
+import android.os.Parcelable;
+import android.support.annotation.Nullable;
+import android.support.v4.view.PagerAdapter;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * What the ViewPager sees of a {@link DynamicPagerAdapter} in looping mode. It reports a large,
+ * fixed number of virtual positions and maps each to a data index, so the wrapped adapter only
+ * ever deals with data indexes: its cache, its positions and its callbacks are the same as when
+ * it isn't looping, and no data is duplicated.
+ *
+ * A virtual position maps to <code>(position - offset) mod count</code>. When the data set
+ * changes, the offset moves instead of the ViewPager's current item, so the current page stays
+ * where it is and the pages around it are placed by their distance from it around the loop.
+ *
+ * While the data set is smaller than {@link DynamicPagerAdapter#getMinLoopingCount()}, positions
+ * are passed through as they are and the pager stops looping.
+ */
+class LoopingPagerAdapter extends PagerAdapter {
+    private static final String TAG = LoopingPagerAdapter.class.getSimpleName();
+
+    /**
+     * Small enough that the ViewPager's scroll offsets (position times page width) can't overflow.
+     */
+    static final int VIRTUAL_COUNT = 100000;
+    static final int START_POSITION = VIRTUAL_COUNT / 2;
+
+    private static final String KEY_OFFSET = "looping_offset";
+    private static final String KEY_ADAPTER_STATE = "adapter_state";
+
+    private final DynamicPagerAdapter adapter;
+
+    private boolean wasLooping;
+    private int offset = START_POSITION;
+
+    @Nullable private Object primaryObject;
+    private int primaryPosition = DynamicPagerAdapter.NO_POSITION;
+
+    /**
+     * Where the current item's data index went in the last data set change.
+     */
+    private int primaryDataPosition = 0;
+
+    LoopingPagerAdapter(DynamicPagerAdapter adapter) {
+        this.adapter = adapter;
+        this.wasLooping = adapter.isLoopingActive();
+
+        adapter.registerDataSetObserver(new DataSetObserver() {
+            @Override
+            public void onChanged() {
+                onDataSetChanged();
+            }
+        });
+    }
+
+    DynamicPagerAdapter getAdapter() {
+        return adapter;
+    }
+
+    /**
+     * @return the data index shown at the virtual position given.
+     */
+    int toDataPosition(int position) {
+        int count = adapter.getCount();
+        if (!wasLooping || count == 0) {
+            return position;
+        }
+        return mod(position - offset, count);
+    }
+
+    /**
+     * @return the virtual position of the data index given that is closest to the virtual
+     * position given.
+     */
+    int toPagerPosition(int dataPosition, int nearPosition) {
+        int count = adapter.getCount();
+        if (!wasLooping || count == 0) {
+            return dataPosition;
+        }
+        return nearPosition + wrappedDelta(dataPosition - toDataPosition(nearPosition), count);
+    }
+
+    /**
+     * Runs before the ViewPager asks for the new positions of its pages. Points the offset at the
+     * data index the current item should show afterwards.
+     */
+    private void onDataSetChanged() {
+        int count = adapter.getCount();
+        boolean isLooping = adapter.isLoopingActive();
+
+        int newPrimaryDataPosition = 0;
+        boolean primaryMoved = false;
+        if (primaryObject != null && count > 0) {
+            int position = adapter.getItemPosition(primaryObject);
+            if (position >= 0) {
+                newPrimaryDataPosition = position;
+                primaryMoved = true;
+            } else {
+                //The ViewPager keeps its current item for pages it recreates
+                newPrimaryDataPosition = Math.min(primaryDataPosition, count - 1);
+            }
+        }
+
+        if (isLooping) {
+            //Moving into the loop, the ViewPager follows a kept page to wherever it is reported
+            int anchor = primaryPosition;
+            if (primaryPosition == DynamicPagerAdapter.NO_POSITION || (!wasLooping && primaryMoved)) {
+                anchor = START_POSITION;
+            }
+            offset = anchor - newPrimaryDataPosition;
+            primaryPosition = anchor;
+        }
+
+        primaryDataPosition = newPrimaryDataPosition;
+        wasLooping = isLooping;
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public int getCount() {
+        return wasLooping ? VIRTUAL_COUNT : adapter.getCount();
+    }
+
+    @Override
+    public int getItemPosition(Object object) {
+        int position = adapter.getItemPosition(object);
+        if (!wasLooping || position < 0) {
+            return position;
+        }
+
+        int anchor = primaryPosition == DynamicPagerAdapter.NO_POSITION ? START_POSITION : primaryPosition;
+        return anchor + wrappedDelta(position - primaryDataPosition, adapter.getCount());
+    }
+
+    @Override
+    public void startUpdate(ViewGroup container) {
+        adapter.startUpdate(container);
+    }
+
+    @Override
+    public Object instantiateItem(ViewGroup container, int position) {
+        return adapter.instantiateItem(container, toDataPosition(position));
+    }
+
+    @Override
+    public void destroyItem(ViewGroup container, int position, Object object) {
+        adapter.destroyItem(container, toDataPosition(position), object);
+    }
+
+    @Override
+    public void setPrimaryItem(ViewGroup container, int position, Object object) {
+        primaryObject = object;
+        primaryPosition = position;
+        primaryDataPosition = toDataPosition(position);
+        adapter.setPrimaryItem(container, primaryDataPosition, object);
+    }
+
+    @Override
+    public void finishUpdate(ViewGroup container) {
+        adapter.finishUpdate(container);
+    }
+
+    @Override
+    public boolean isViewFromObject(View view, Object object) {
+        return adapter.isViewFromObject(view, object);
+    }
+
+    /**
+     * Keeps the offset along with the adapter's state, since the ViewPager restores its virtual
+     * current item.
+     */
+    @Override
+    public Parcelable saveState() {
+        Bundle bundle = new Bundle();
+        bundle.putInt(KEY_OFFSET, offset);
+        bundle.putParcelable(KEY_ADAPTER_STATE, adapter.saveState());
+        return bundle;
+    }
+
+    @Override
+    public void restoreState(@Nullable Parcelable state, @Nullable ClassLoader loader) {
+        if (!(state instanceof Bundle)) {
+            return;
+        }
+
+        Bundle bundle = (Bundle) state;
+        bundle.setClassLoader(loader);
+        offset = bundle.getInt(KEY_OFFSET, START_POSITION);
+        adapter.restoreState(bundle.getParcelable(KEY_ADAPTER_STATE), loader);
+    }
+
+    @Override
+    public CharSequence getPageTitle(int position) {
+        return adapter.getPageTitle(toDataPosition(position));
+    }
+
+    @Override
+    public float getPageWidth(int position) {
+        return adapter.getPageWidth(toDataPosition(position));
+    }
+
+    static int mod(int value, int count) {
+        return ((value % count) + count) % count;
+    }
+
+    /**
+     * @return the shortest way around a loop of the count given to go the distance given, in
+     * (-count / 2, count / 2].
+     */
+    static int wrappedDelta(int delta, int count) {
+        int wrapped = mod(delta, count);
+        return wrapped > count / 2 ? wrapped - count : wrapped;
+    }
+}
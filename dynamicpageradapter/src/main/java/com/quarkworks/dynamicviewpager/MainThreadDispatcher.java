@@ -0,0 +1,38 @@
+package com.quarkworks.dynamicviewpager;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * The one Handler on the main Looper that every adapter and pager in the library posts through,
+ * so getting back onto the main thread never creates a Handler. Callers post Runnables they keep
+ * in fields rather than creating one per post.
+ */
+final class MainThreadDispatcher {
+    private static final String TAG = MainThreadDispatcher.class.getSimpleName();
+
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+
+    private MainThreadDispatcher() {}
+
+    static void post(Runnable runnable) {
+        handler.post(runnable);
+    }
+
+    static void postDelayed(Runnable runnable, long delayMillis) {
+        handler.postDelayed(runnable, delayMillis);
+    }
+
+    /**
+     * Removes the Runnable if it is waiting, then posts it, so it runs once however many times
+     * this is called before it does.
+     */
+    static void repost(Runnable runnable) {
+        handler.removeCallbacks(runnable);
+        handler.post(runnable);
+    }
+
+    static void remove(Runnable runnable) {
+        handler.removeCallbacks(runnable);
+    }
+}
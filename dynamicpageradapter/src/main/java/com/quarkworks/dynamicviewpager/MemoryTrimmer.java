@@ -0,0 +1,128 @@
+package com.quarkworks.dynamicviewpager;
+
+import android.annotation.TargetApi;
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.support.v4.view.ViewCompat;
+
+/**
+ * Listens for memory pressure while a {@link SwipeRemovalViewPager} is attached and releases
+ * pages with it:
+ * <ul>
+ *     <li>{@link ComponentCallbacks2#TRIM_MEMORY_UI_HIDDEN}: the app went to the background,
+ *     which isn't memory pressure. The window is left alone and the adapter only drops its
+ *     prefetched pages.</li>
+ *     <li>{@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_LOW} and up: the pager's offscreen window
+ *     shrinks to its low memory limit, so pages far from the current one are destroyed.</li>
+ *     <li>{@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_MODERATE}, or the pager's window becoming
+ *     visible again: the window grows back to the limit the app asked for.</li>
+ *     <li>Every level: the adapter releases detached ViewHolders (see
+ *     {@link DynamicPagerAdapter#onTrimMemory(int)}), after the window has shrunk so the pages it
+ *     destroyed are dropped too.</li>
+ * </ul>
+ *
+ * Low RAM devices start with the smaller window and keep it.
+ *
+ * ComponentCallbacks2 was added in API 14, so this class must only be loaded from there on.
+ */
+@TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+class MemoryTrimmer implements ComponentCallbacks2 {
+    private static final String TAG = MemoryTrimmer.class.getSimpleName();
+
+    private final SwipeRemovalViewPager viewPager;
+    private final boolean isLowRamDevice;
+
+    private boolean isEnabled = true;
+    private boolean isRegistered = false;
+
+    MemoryTrimmer(SwipeRemovalViewPager viewPager) {
+        this.viewPager = viewPager;
+
+        boolean lowRam = false;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            ActivityManager activityManager = (ActivityManager) viewPager.getContext().getSystemService(Context.ACTIVITY_SERVICE);
+            lowRam = activityManager != null && activityManager.isLowRamDevice();
+        }
+        this.isLowRamDevice = lowRam;
+    }
+
+    boolean isLowRamDevice() {
+        return isLowRamDevice;
+    }
+
+    /**
+     * Enabling only registers if the pager is attached; otherwise it waits for
+     * {@link #register()} from onAttachedToWindow().
+     */
+    void setEnabled(boolean enabled) {
+        isEnabled = enabled;
+
+        if (enabled) {
+            if (ViewCompat.isAttachedToWindow(viewPager)) {
+                register();
+            }
+        } else {
+            unregister();
+            viewPager.setLowMemory(isLowRamDevice);
+        }
+    }
+
+    boolean isEnabled() {
+        return isEnabled;
+    }
+
+    void register() {
+        if (!isEnabled || isRegistered) {
+            return;
+        }
+
+        viewPager.getContext().getApplicationContext().registerComponentCallbacks(this);
+        isRegistered = true;
+    }
+
+    void unregister() {
+        if (!isRegistered) {
+            return;
+        }
+
+        viewPager.getContext().getApplicationContext().unregisterComponentCallbacks(this);
+        isRegistered = false;
+    }
+
+    /**
+     * Called when the pager's window is shown again.
+     */
+    void onVisible() {
+        if (isEnabled) {
+            viewPager.setLowMemory(isLowRamDevice);
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level == TRIM_MEMORY_UI_HIDDEN) {
+            //Not memory pressure, so the window is left as it is for when the app comes back
+        } else if (level == TRIM_MEMORY_RUNNING_MODERATE) {
+            viewPager.setLowMemory(isLowRamDevice);
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            viewPager.setLowMemory(true);
+        }
+
+        DynamicPagerAdapter adapter = viewPager.getDynamicPagerAdapter();
+        if (adapter != null) {
+            adapter.onTrimMemory(level);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+}
@@ -0,0 +1,186 @@
+package com.quarkworks.dynamicviewpager;
+
+import android.os.Build;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.ViewPager;
+import android.view.Display;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates and binds the page just outside of the ViewPager's offscreen window while the main
+ * thread is idle between frames, so {@link DynamicPagerAdapter#instantiateItem} only has to attach
+ * it when the user pages over. Work is only started if it is expected to finish before the next
+ * frame is due (see {@link DynamicPagerAdapter#prefetch}).
+ *
+ * While the user scrolls, only the page in the direction of the scroll is prefetched. Once the
+ * pager settles, both sides are.
+ */
+class PagePrefetcher extends ViewPager.SimpleOnPageChangeListener implements Runnable {
+    private static final String TAG = PagePrefetcher.class.getSimpleName();
+
+    private static final long DEFAULT_FRAME_INTERVAL_NS = TimeUnit.SECONDS.toNanos(1) / 60;
+
+    /**
+     * How many times idle work that didn't fit is retried with a longer budget, and the most
+     * frame intervals that budget grows to.
+     */
+    private static final int MAX_IDLE_RETRIES = 3;
+    private static final int MAX_IDLE_RETRY_FRAMES = 4;
+
+    private final SwipeRemovalViewPager viewPager;
+
+    private boolean isEnabled = true;
+    private boolean isPosted = false;
+    private int scrollState = ViewPager.SCROLL_STATE_IDLE;
+
+    /**
+     * 1 when scrolling towards higher positions, -1 towards lower ones, 0 for both.
+     */
+    private int direction = 0;
+
+    private long frameIntervalNs = 0;
+
+    /**
+     * Counts the retries of idle work that didn't fit in a frame. Each retry gets twice the budget
+     * of the last, up to {@link #MAX_IDLE_RETRY_FRAMES} frame intervals, since nothing else is
+     * being drawn and it might otherwise never fit. Work that still doesn't fit is left until the
+     * page changes, so a slow page can't hold up input indefinitely.
+     */
+    private int idleRetries = 0;
+
+    /**
+     * Runs on the next frame and posts the prefetch behind it, so unfinished work gets the gap
+     * after that frame instead of competing with it.
+     */
+    private final Runnable retryNextFrame = new Runnable() {
+        @Override
+        public void run() {
+            schedule();
+        }
+    };
+
+    PagePrefetcher(SwipeRemovalViewPager viewPager) {
+        this.viewPager = viewPager;
+    }
+
+    void setEnabled(boolean enabled) {
+        isEnabled = enabled;
+
+        if (!enabled) {
+            cancel();
+        }
+    }
+
+    void cancel() {
+        viewPager.removeCallbacks(this);
+        viewPager.removeCallbacks(retryNextFrame);
+        isPosted = false;
+        idleRetries = 0;
+    }
+
+    boolean isEnabled() {
+        return isEnabled;
+    }
+
+    @Override
+    public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+        if (positionOffset != 0) {
+            direction = position >= viewPager.getCurrentItem() ? 1 : -1;
+        }
+        schedule();
+    }
+
+    @Override
+    public void onPageSelected(int position) {
+        schedule();
+    }
+
+    @Override
+    public void onPageScrollStateChanged(int state) {
+        scrollState = state;
+
+        if (state == ViewPager.SCROLL_STATE_IDLE) {
+            direction = 0;
+            schedule();
+        }
+    }
+
+    /**
+     * Posting from inside a frame (page scroll callbacks happen during layout and draw) runs the
+     * prefetch right after that frame is done.
+     */
+    void schedule() {
+        if (!isEnabled || isPosted || viewPager.getDynamicPagerAdapter() == null) {
+            return;
+        }
+
+        isPosted = true;
+        viewPager.post(this);
+    }
+
+    @Override
+    public void run() {
+        isPosted = false;
+
+        DynamicPagerAdapter adapter = viewPager.getDynamicPagerAdapter();
+        if (!isEnabled || adapter == null || adapter.isViewAnimating()) {
+            return;
+        }
+
+        long nowNs = System.nanoTime();
+        long deadlineNs = TimeUnit.MILLISECONDS.toNanos(viewPager.getDrawingTime()) + getFrameIntervalNs();
+
+        //Nothing has been drawn for a while, so the pager is idle and the whole interval is free
+        if (deadlineNs < nowNs) {
+            deadlineNs = nowNs + getFrameIntervalNs();
+        }
+
+        boolean isIdle = scrollState == ViewPager.SCROLL_STATE_IDLE;
+        if (isIdle && idleRetries > 0) {
+            deadlineNs = nowNs + getFrameIntervalNs() * Math.min(1 << idleRetries, MAX_IDLE_RETRY_FRAMES);
+        }
+
+        int current = viewPager.getCurrentItem();
+        int distance = viewPager.getOffscreenPageLimit() + 1;
+
+        adapter.clearPrefetchedOutside(adapter.toDataPosition(current), distance);
+        adapter.updatePrefetchWindow(adapter.toDataPosition(current), distance);
+
+        boolean finished = true;
+        if (direction >= 0) {
+            finished = adapter.prefetch(viewPager, current + distance, deadlineNs);
+        }
+        if (direction <= 0) {
+            finished &= adapter.prefetch(viewPager, current - distance, deadlineNs);
+        }
+
+        //While scrolling, every frame schedules again anyway
+        if (!finished && isIdle && idleRetries < MAX_IDLE_RETRIES) {
+            idleRetries++;
+            ViewCompat.postOnAnimation(viewPager, retryNextFrame);
+        } else {
+            idleRetries = 0;
+        }
+    }
+
+    private long getFrameIntervalNs() {
+        if (frameIntervalNs == 0) {
+            float refreshRate = 0;
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+                Display display = viewPager.getDisplay();
+                if (display != null) {
+                    refreshRate = display.getRefreshRate();
+                }
+            }
+
+            if (refreshRate >= 30.0f) {
+                frameIntervalNs = (long) (TimeUnit.SECONDS.toNanos(1) / refreshRate);
+            } else {
+                return DEFAULT_FRAME_INTERVAL_NS;
+            }
+        }
+        return frameIntervalNs;
+    }
+}
@@ -0,0 +1,279 @@
+package com.quarkworks.dynamicviewpager;
+
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+import android.view.ViewGroup;
+
+import com.quarkworks.dynamicviewpager.helpers.PagedItemCache;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A DynamicPagerAdapter for data sets too large to hold in memory. Items are loaded from a
+ * {@link DataSource} in fixed size pages on a background Executor, around the positions the
+ * ViewPager binds and its current item, and only the most recently used pages are kept.
+ *
+ * Until the page holding an item has loaded, {@link #getItem(int)} returns null and the page
+ * should be bound as a placeholder. When the page arrives, only the cached ViewHolders of its
+ * positions are rebound (see {@link #notifyItemRangeChanged(int, int)}).
+ */
+abstract public class PagedListPagerAdapter<T, VH extends DynamicPagerAdapter.ViewHolder> extends DynamicPagerAdapter<VH> {
+    private static final String TAG = PagedListPagerAdapter.class.getSimpleName();
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int DEFAULT_MAX_LOADED_PAGES = 10;
+
+    /**
+     * How many times a page is requested before {@link #hasLoadFailed(int)} reports it, and the
+     * delay before the first retry, which doubles with every failure after that.
+     */
+    public static final int MAX_LOAD_ATTEMPTS = 4;
+    public static final long RETRY_DELAY_MS = 500;
+
+    /**
+     * Provides the items of a data set by range.
+     */
+    public static abstract class DataSource<T> {
+
+        /**
+         * @return the total number of items. Called on the main thread, so it must be cheap.
+         */
+        public abstract int getCount();
+
+        /**
+         * Loads the items at [startPosition, startPosition + loadSize). Called on the load
+         * Executor.
+         *
+         * @return the items, or null if they couldn't be loaded, in which case they are requested
+         * again after a delay, up to {@link #MAX_LOAD_ATTEMPTS} times in all. The list is kept,
+         * so it must not be modified afterwards.
+         */
+        @WorkerThread
+        @Nullable
+        public abstract List<T> loadRange(int startPosition, int loadSize);
+    }
+
+    @Nullable private static ExecutorService defaultLoadExecutor;
+
+    private final PagedItemCache<T> itemCache;
+    private final Executor loadExecutor;
+
+    @Nullable private DataSource<T> dataSource;
+    private int count = 0;
+    private int prefetchDistance;
+
+    /**
+     * Incremented whenever the data source is replaced so pages loaded from the old one are
+     * dropped.
+     */
+    private int dataSourceGeneration = 0;
+
+    public PagedListPagerAdapter() {
+        this(DEFAULT_PAGE_SIZE, DEFAULT_MAX_LOADED_PAGES, getDefaultLoadExecutor());
+    }
+
+    /**
+     * @param pageSize The number of items loaded at a time.
+     * @param maxLoadedPages The number of loaded pages to keep in memory.
+     * @param loadExecutor Used to load pages. It must not run tasks on the main thread.
+     */
+    public PagedListPagerAdapter(int pageSize, int maxLoadedPages, Executor loadExecutor) {
+        this.itemCache = new PagedItemCache<>(pageSize, maxLoadedPages);
+        this.loadExecutor = loadExecutor;
+        this.prefetchDistance = pageSize / 2;
+    }
+
+    private static synchronized Executor getDefaultLoadExecutor() {
+        if (defaultLoadExecutor == null) {
+            defaultLoadExecutor = Executors.newFixedThreadPool(2);
+        }
+        return defaultLoadExecutor;
+    }
+
+    /**
+     * Replaces the data set. Must be called on the main thread. Every page is loaded again from
+     * the new data source.
+     */
+    public void setDataSource(@Nullable DataSource<T> dataSource) {
+        this.dataSource = dataSource;
+        dataSourceGeneration++;
+
+        itemCache.clear();
+        count = dataSource == null ? 0 : dataSource.getCount();
+        notifyDataSetChanged();
+    }
+
+    @Nullable
+    public DataSource<T> getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Sets how many items ahead of and behind a bound position are loaded too. The default is
+     * half a page, so the next page is usually loaded well before the user gets to it.
+     */
+    public void setPrefetchDistance(int items) {
+        if (items < 0) {
+            throw new IllegalArgumentException("items must not be negative");
+        }
+
+        prefetchDistance = items;
+    }
+
+    /**
+     * Sets the number of loaded pages to keep in memory.
+     */
+    public void setMaxLoadedPages(int maxLoadedPages) {
+        itemCache.setMaxPages(maxLoadedPages);
+    }
+
+    /**
+     * @return the item at the position given, or null if it hasn't been loaded yet, in which case
+     * it starts loading. Bind a placeholder for null items; the page is rebound once its item
+     * arrives.
+     */
+    @Nullable
+    public T getItem(int position) {
+        T item = itemCache.get(position);
+        if (item == null) {
+            loadAround(position);
+        }
+        return item;
+    }
+
+    public boolean isLoaded(int position) {
+        return itemCache.isLoaded(itemCache.pageOf(position));
+    }
+
+    /**
+     * @return True if the item at the position given couldn't be loaded after
+     * {@link #MAX_LOAD_ATTEMPTS} attempts. Its page is rebound when this starts being true, so an
+     * error can be bound instead of the placeholder. It is not requested again until
+     * {@link #retryFailedLoads()}.
+     */
+    public boolean hasLoadFailed(int position) {
+        return itemCache.hasFailed(itemCache.pageOf(position));
+    }
+
+    /**
+     * Requests the items that failed to load again, for example when the user asks to or the
+     * network comes back. The attached pages are rebound.
+     */
+    public void retryFailedLoads() {
+        itemCache.clearFailures();
+        updateViews();
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void setPrimaryItem(ViewGroup container, int position, Object object) {
+        super.setPrimaryItem(container, position, object);
+        loadAround(position);
+    }
+
+    /**
+     * Requests the page of the position given first, then the pages within the prefetch distance.
+     */
+    private void loadAround(int position) {
+        if (position < 0 || position >= count) {
+            return;
+        }
+
+        loadPage(itemCache.pageOf(position));
+
+        int firstPage = itemCache.pageOf(Math.max(0, position - prefetchDistance));
+        int lastPage = itemCache.pageOf(Math.min(count - 1, position + prefetchDistance));
+        for (int pageIndex = firstPage; pageIndex <= lastPage; pageIndex++) {
+            loadPage(pageIndex);
+        }
+    }
+
+    private void loadPage(int pageIndex) {
+        if (dataSource == null || !itemCache.startLoading(pageIndex)) {
+            return;
+        }
+
+        requestPage(dataSource, pageIndex);
+    }
+
+    private void requestPage(final DataSource<T> source, final int pageIndex) {
+        final int generation = dataSourceGeneration;
+        final int startPosition = pageIndex * itemCache.getPageSize();
+        final int loadSize = Math.min(itemCache.getPageSize(), count - startPosition);
+
+        loadExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<T> loaded = null;
+                try {
+                    loaded = source.loadRange(startPosition, loadSize);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Loading items " + startPosition + " to " + (startPosition + loadSize) + " failed", e);
+                }
+
+                final List<T> items = loaded;
+                MainThreadDispatcher.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == dataSourceGeneration) {
+                            onPageLoaded(pageIndex, items);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void onPageLoaded(int pageIndex, @Nullable List<T> items) {
+        if (items == null) {
+            onPageLoadFailed(pageIndex);
+            return;
+        }
+
+        itemCache.putPage(pageIndex, items);
+        notifyPageChanged(pageIndex, items.size());
+    }
+
+    /**
+     * The page stays marked as loading while the retry waits, so binding its positions doesn't
+     * request it again in the meantime.
+     */
+    private void onPageLoadFailed(final int pageIndex) {
+        int attempts = itemCache.onLoadFailed(pageIndex);
+        if (attempts >= MAX_LOAD_ATTEMPTS) {
+            itemCache.markFailed(pageIndex);
+            notifyPageChanged(pageIndex, itemCache.getPageSize());
+            return;
+        }
+
+        final DataSource<T> source = dataSource;
+        final int generation = dataSourceGeneration;
+        MainThreadDispatcher.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                if (generation == dataSourceGeneration && itemCache.isLoading(pageIndex)) {
+                    requestPage(source, pageIndex);
+                }
+            }
+        }, RETRY_DELAY_MS << (attempts - 1));
+    }
+
+    /**
+     * Only the attached pages of the positions are rebound.
+     */
+    private void notifyPageChanged(int pageIndex, int pageItemCount) {
+        int startPosition = pageIndex * itemCache.getPageSize();
+        int itemCount = Math.min(pageItemCount, count - startPosition);
+        if (itemCount > 0) {
+            notifyItemRangeChanged(startPosition, itemCount);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.quarkworks.dynamicviewpager;
+
+/**
+ * Receives timings and ViewHolder lookup results from {@link DynamicPagerAdapter} and
+ * {@link SwipeRemovalViewPager}. Set it with {@link DynamicPagerAdapter#setMetricsListener} and
+ * {@link SwipeRemovalViewPager#setMetricsListener}. Callbacks happen on the main thread in the
+ * middle of layout and animation, so implementations must be cheap and should not allocate.
+ * {@link RingBufferMetrics} is a ready-made implementation.
+ */
+public interface PagerMetricsListener {
+
+    int EVENT_CREATE_VIEW_HOLDER = 0;
+    int EVENT_BIND_VIEW_HOLDER = 1;
+    int EVENT_INSTANTIATE_ITEM = 2;
+    int EVENT_DESTROY_ITEM = 3;
+    int EVENT_DISCARD_ANIMATION = 4;
+    int EVENT_COLLAPSE_ANIMATION = 5;
+
+    /**
+     * The animation that settles a dragged page back into place or off the screen after the user
+     * lets go (SwipeRemovalViewPager only).
+     */
+    int EVENT_SWIPE_SETTLE_ANIMATION = 6;
+
+    int EVENT_COUNT = 7;
+
+    /**
+     * The page was already in the ViewHolder cache.
+     */
+    int LOOKUP_CACHE_HIT = 0;
+
+    /**
+     * The page had been created and bound ahead of time by the prefetcher.
+     */
+    int LOOKUP_PREFETCH_HIT = 1;
+
+    /**
+     * A ViewHolder was taken from the {@link RecycledViewPool} and rebound.
+     */
+    int LOOKUP_POOL_HIT = 2;
+
+    /**
+     * A ViewHolder had to be created.
+     */
+    int LOOKUP_MISS = 3;
+
+    /**
+     * A placeholder was shown while the page is inflated in the background.
+     */
+    int LOOKUP_PLACEHOLDER = 4;
+
+    int LOOKUP_COUNT = 5;
+
+    /**
+     * @param event One of the EVENT_ constants.
+     * @param viewType The view type involved, or {@link DynamicPagerAdapter#DEFAULT_VIEW_TYPE} for
+     *                 events that aren't tied to a single page type (animations).
+     */
+    void onTimedEvent(int event, int viewType, long durationNs);
+
+    /**
+     * Called once per {@link DynamicPagerAdapter#instantiateItem} with where the page came from.
+     *
+     * @param result One of the LOOKUP_ constants.
+     */
+    void onViewHolderLookup(int result, int viewType);
+
+    /**
+     * Called when {@link DynamicPagerAdapter#onTrimMemory(int)} releases ViewHolders under memory
+     * pressure.
+     *
+     * @param level The level given to ComponentCallbacks2.onTrimMemory().
+     * @param releasedViewHolders How many pooled and prefetched ViewHolders were dropped.
+     */
+    void onTrimMemory(int level, int releasedViewHolders);
+}
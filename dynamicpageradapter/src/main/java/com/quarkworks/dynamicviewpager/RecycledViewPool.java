@@ -0,0 +1,192 @@
+package com.quarkworks.dynamicviewpager;
+
+import android.support.annotation.Nullable;
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+
+/**
+ * Holds ViewHolders that have been detached from the ViewPager so they can be rebound instead of
+ * created again. Holders are kept per view type (see {@link DynamicPagerAdapter#getViewType(int)})
+ * and each view type has its own maximum, just like RecyclerView's RecycledViewPool.
+ *
+ * The pool also keeps running averages of how long creating and binding a ViewHolder of each view
+ * type takes, which the prefetcher uses to decide whether work fits in the time left in a frame.
+ */
+public class RecycledViewPool<VH extends DynamicPagerAdapter.ViewHolder> {
+    private static final String TAG = RecycledViewPool.class.getSimpleName();
+
+    /**
+     * Enough to cover a ViewPager with an offscreen page limit of 2 (the current page and two on
+     * either side).
+     */
+    public static final int DEFAULT_MAX_RECYCLED_VIEWS = 5;
+
+    private static class ScrapData<VH> {
+        final ArrayList<VH> holders = new ArrayList<>();
+        int maxRecycledViews = DEFAULT_MAX_RECYCLED_VIEWS;
+        long createRunningAverageNs = 0;
+        long bindRunningAverageNs = 0;
+    }
+
+    private final SparseArray<ScrapData<VH>> scrap = new SparseArray<>();
+
+    private ScrapData<VH> getScrapData(int viewType) {
+        ScrapData<VH> scrapData = scrap.get(viewType);
+        if (scrapData == null) {
+            scrapData = new ScrapData<>();
+            scrap.put(viewType, scrapData);
+        }
+        return scrapData;
+    }
+
+    /**
+     * Sets the maximum number of ViewHolders to hold for the view type given. Holders over the new
+     * maximum are dropped immediately.
+     */
+    public void setMaxRecycledViews(int viewType, int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("max must not be negative");
+        }
+
+        ScrapData<VH> scrapData = getScrapData(viewType);
+        scrapData.maxRecycledViews = max;
+
+        ArrayList<VH> holders = scrapData.holders;
+        while (holders.size() > max) {
+            holders.remove(holders.size() - 1);
+        }
+    }
+
+    public int getMaxRecycledViews(int viewType) {
+        ScrapData<VH> scrapData = scrap.get(viewType);
+        return scrapData == null ? DEFAULT_MAX_RECYCLED_VIEWS : scrapData.maxRecycledViews;
+    }
+
+    /**
+     * @return the number of ViewHolders currently held for the view type given.
+     */
+    public int getRecycledViewCount(int viewType) {
+        ScrapData<VH> scrapData = scrap.get(viewType);
+        return scrapData == null ? 0 : scrapData.holders.size();
+    }
+
+    /**
+     * @return the number of ViewHolders currently held across all view types.
+     */
+    public int getRecycledViewCount() {
+        int count = 0;
+        for (int i = 0; i < scrap.size(); i++) {
+            count += scrap.valueAt(i).holders.size();
+        }
+        return count;
+    }
+
+    /**
+     * Removes and returns a ViewHolder of the view type given, or null if none are held.
+     */
+    @Nullable
+    public VH getRecycledView(int viewType) {
+        ScrapData<VH> scrapData = scrap.get(viewType);
+        if (scrapData == null || scrapData.holders.isEmpty()) {
+            return null;
+        }
+
+        ArrayList<VH> holders = scrapData.holders;
+        return holders.remove(holders.size() - 1);
+    }
+
+    /**
+     * Adds a ViewHolder to the pool under its {@link DynamicPagerAdapter.ViewHolder#viewType}.
+     *
+     * @return True if the ViewHolder was kept, false if the pool for its view type is full.
+     */
+    public boolean putRecycledView(VH viewHolder) {
+        ScrapData<VH> scrapData = getScrapData(viewHolder.viewType);
+        ArrayList<VH> holders = scrapData.holders;
+
+        if (holders.size() >= scrapData.maxRecycledViews || holders.contains(viewHolder)) {
+            return false;
+        }
+
+        holders.add(viewHolder);
+        return true;
+    }
+
+    /**
+     * Drops every held ViewHolder. Timing averages are kept.
+     */
+    public void clear() {
+        for (int i = 0; i < scrap.size(); i++) {
+            scrap.valueAt(i).holders.clear();
+        }
+    }
+
+    /**
+     * Drops held ViewHolders until no more than the number given are held across all view types,
+     * taking from whichever view type holds the most each time. Maximums and timing averages are
+     * kept.
+     *
+     * @return the number of ViewHolders dropped.
+     */
+    public int trimToCount(int maxCount) {
+        if (maxCount < 0) {
+            throw new IllegalArgumentException("maxCount must not be negative");
+        }
+
+        int dropped = 0;
+        for (int count = getRecycledViewCount(); count > maxCount; count--) {
+            ArrayList<VH> largest = null;
+            for (int i = 0; i < scrap.size(); i++) {
+                ArrayList<VH> holders = scrap.valueAt(i).holders;
+                if (largest == null || holders.size() > largest.size()) {
+                    largest = holders;
+                }
+            }
+
+            largest.remove(largest.size() - 1);
+            dropped++;
+        }
+        return dropped;
+    }
+
+    void factorInCreateTime(int viewType, long createTimeNs) {
+        ScrapData<VH> scrapData = getScrapData(viewType);
+        scrapData.createRunningAverageNs = runningAverage(scrapData.createRunningAverageNs, createTimeNs);
+    }
+
+    void factorInBindTime(int viewType, long bindTimeNs) {
+        ScrapData<VH> scrapData = getScrapData(viewType);
+        scrapData.bindRunningAverageNs = runningAverage(scrapData.bindRunningAverageNs, bindTimeNs);
+    }
+
+    /**
+     * @return True if creating a ViewHolder of the view type given is expected to finish before
+     * the deadline. Always true until a creation has been timed.
+     */
+    boolean willCreateInTime(int viewType, long approxCurrentNs, long deadlineNs) {
+        ScrapData<VH> scrapData = scrap.get(viewType);
+        long expectedNs = scrapData == null ? 0 : scrapData.createRunningAverageNs;
+        return expectedNs == 0 || approxCurrentNs + expectedNs < deadlineNs;
+    }
+
+    /**
+     * @return True if binding a ViewHolder of the view type given is expected to finish before
+     * the deadline. Always true until a bind has been timed.
+     */
+    boolean willBindInTime(int viewType, long approxCurrentNs, long deadlineNs) {
+        ScrapData<VH> scrapData = scrap.get(viewType);
+        long expectedNs = scrapData == null ? 0 : scrapData.bindRunningAverageNs;
+        return expectedNs == 0 || approxCurrentNs + expectedNs < deadlineNs;
+    }
+
+    /**
+     * Weighs older samples at 3/4 so a single slow frame doesn't dominate.
+     */
+    private static long runningAverage(long oldAverage, long newValue) {
+        if (oldAverage == 0) {
+            return newValue;
+        }
+        return (oldAverage / 4 * 3) + (newValue / 4);
+    }
+}
@@ -0,0 +1,268 @@
+package com.quarkworks.dynamicviewpager;
+
+import java.util.Arrays;
+
+/**
+ * A {@link PagerMetricsListener} that keeps the most recent samples of every event in
+ * preallocated ring buffers and counts ViewHolder lookups per view type. Recording never
+ * allocates; only {@link #dump()} and the percentile getters do.
+ *
+ * Lookup counts are kept for up to {@link #MAX_TRACKED_VIEW_TYPES} view types. Any further view
+ * types are counted together under {@link #OTHER_VIEW_TYPES}.
+ *
+ * Like the rest of the adapter, this is meant to be used from the main thread only.
+ */
+public class RingBufferMetrics implements PagerMetricsListener {
+    private static final String TAG = RingBufferMetrics.class.getSimpleName();
+
+    public static final int DEFAULT_SAMPLES_PER_EVENT = 256;
+
+    public static final int MAX_TRACKED_VIEW_TYPES = 16;
+
+    /**
+     * The view type reported in {@link #dump()} for lookups of untracked view types.
+     */
+    public static final int OTHER_VIEW_TYPES = Integer.MIN_VALUE;
+
+    private final int samplesPerEvent;
+
+    private final long[][] durationsNs;
+    private final int[][] sampleViewTypes;
+    private final long[] eventCounts = new long[EVENT_COUNT];
+
+    private final int[] trackedViewTypes = new int[MAX_TRACKED_VIEW_TYPES];
+    private int trackedViewTypeCount = 0;
+
+    /**
+     * One row per tracked view type plus a last row for the rest.
+     */
+    private final long[][] lookupCounts = new long[MAX_TRACKED_VIEW_TYPES + 1][LOOKUP_COUNT];
+
+    private long trimCount = 0;
+    private long releasedViewHolders = 0;
+    private int lastTrimLevel = 0;
+
+    public RingBufferMetrics() {
+        this(DEFAULT_SAMPLES_PER_EVENT);
+    }
+
+    public RingBufferMetrics(int samplesPerEvent) {
+        if (samplesPerEvent <= 0) {
+            throw new IllegalArgumentException("samplesPerEvent must be positive");
+        }
+
+        this.samplesPerEvent = samplesPerEvent;
+        durationsNs = new long[EVENT_COUNT][samplesPerEvent];
+        sampleViewTypes = new int[EVENT_COUNT][samplesPerEvent];
+    }
+
+    @Override
+    public void onTimedEvent(int event, int viewType, long durationNs) {
+        int index = (int) (eventCounts[event] % samplesPerEvent);
+
+        durationsNs[event][index] = durationNs;
+        sampleViewTypes[event][index] = viewType;
+        eventCounts[event]++;
+    }
+
+    @Override
+    public void onViewHolderLookup(int result, int viewType) {
+        lookupCounts[rowForViewType(viewType)][result]++;
+    }
+
+    @Override
+    public void onTrimMemory(int level, int releasedViewHolders) {
+        trimCount++;
+        this.releasedViewHolders += releasedViewHolders;
+        lastTrimLevel = level;
+    }
+
+    private int rowForViewType(int viewType) {
+        for (int i = 0; i < trackedViewTypeCount; i++) {
+            if (trackedViewTypes[i] == viewType) {
+                return i;
+            }
+        }
+
+        if (trackedViewTypeCount < MAX_TRACKED_VIEW_TYPES) {
+            trackedViewTypes[trackedViewTypeCount] = viewType;
+            return trackedViewTypeCount++;
+        }
+
+        return MAX_TRACKED_VIEW_TYPES;
+    }
+
+    /**
+     * @return the total number of times the event was recorded, including samples that have
+     * since been overwritten.
+     */
+    public long getEventCount(int event) {
+        return eventCounts[event];
+    }
+
+    /**
+     * @return the number of lookups with the result given for the view type given.
+     */
+    public long getLookupCount(int result, int viewType) {
+        for (int i = 0; i < trackedViewTypeCount; i++) {
+            if (trackedViewTypes[i] == viewType) {
+                return lookupCounts[i][result];
+            }
+        }
+        return viewType == OTHER_VIEW_TYPES ? lookupCounts[MAX_TRACKED_VIEW_TYPES][result] : 0;
+    }
+
+    /**
+     * @return the number of memory trims recorded.
+     */
+    public long getTrimCount() {
+        return trimCount;
+    }
+
+    /**
+     * @return the total number of ViewHolders released by memory trims.
+     */
+    public long getReleasedViewHolderCount() {
+        return releasedViewHolders;
+    }
+
+    /**
+     * @return the level of the most recent memory trim, or 0 if there hasn't been one.
+     */
+    public int getLastTrimLevel() {
+        return lastTrimLevel;
+    }
+
+    /**
+     * @param percentile In the range [0, 100].
+     * @return the duration at the percentile given over the retained samples of the event, or 0
+     * if there are none.
+     */
+    public long getPercentileNs(int event, double percentile) {
+        long[] sorted = sortedSamples(event);
+        return percentile(sorted, percentile);
+    }
+
+    private long[] sortedSamples(int event) {
+        int count = (int) Math.min(eventCounts[event], samplesPerEvent);
+        long[] sorted = Arrays.copyOf(durationsNs[event], count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    /**
+     * Clears every sample and count.
+     */
+    public void reset() {
+        Arrays.fill(eventCounts, 0);
+        for (long[] row : lookupCounts) {
+            Arrays.fill(row, 0);
+        }
+        trackedViewTypeCount = 0;
+        trimCount = 0;
+        releasedViewHolders = 0;
+        lastTrimLevel = 0;
+    }
+
+    /**
+     * Exports the current state as JSON for dashboards: per event, the total count and the
+     * min/p50/p90/p99/max of the retained samples in nanoseconds, plus lookup counts per view
+     * type and memory trim totals.
+     */
+    public String dump() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\"events\":{");
+
+        for (int event = 0; event < EVENT_COUNT; event++) {
+            long[] sorted = sortedSamples(event);
+
+            if (event > 0) {
+                builder.append(',');
+            }
+            builder.append('"').append(eventName(event)).append("\":{")
+                    .append("\"count\":").append(eventCounts[event])
+                    .append(",\"samples\":").append(sorted.length)
+                    .append(",\"minNs\":").append(sorted.length == 0 ? 0 : sorted[0])
+                    .append(",\"p50Ns\":").append(percentile(sorted, 50))
+                    .append(",\"p90Ns\":").append(percentile(sorted, 90))
+                    .append(",\"p99Ns\":").append(percentile(sorted, 99))
+                    .append(",\"maxNs\":").append(sorted.length == 0 ? 0 : sorted[sorted.length - 1])
+                    .append('}');
+        }
+
+        builder.append("},\"lookups\":[");
+
+        boolean first = true;
+        for (int row = 0; row <= MAX_TRACKED_VIEW_TYPES; row++) {
+            if (row >= trackedViewTypeCount && row != MAX_TRACKED_VIEW_TYPES) {
+                continue;
+            }
+
+            long[] counts = lookupCounts[row];
+            if (row == MAX_TRACKED_VIEW_TYPES && isZero(counts)) {
+                continue;
+            }
+
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+
+            int viewType = row == MAX_TRACKED_VIEW_TYPES ? OTHER_VIEW_TYPES : trackedViewTypes[row];
+            builder.append("{\"viewType\":").append(viewType);
+            for (int result = 0; result < LOOKUP_COUNT; result++) {
+                builder.append(",\"").append(lookupName(result)).append("\":").append(counts[result]);
+            }
+            builder.append('}');
+        }
+
+        builder.append("],\"trims\":{")
+                .append("\"count\":").append(trimCount)
+                .append(",\"releasedViewHolders\":").append(releasedViewHolders)
+                .append(",\"lastLevel\":").append(lastTrimLevel)
+                .append("}}");
+        return builder.toString();
+    }
+
+    private static boolean isZero(long[] counts) {
+        for (long count : counts) {
+            if (count != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static String eventName(int event) {
+        switch (event) {
+            case EVENT_CREATE_VIEW_HOLDER: return "createViewHolder";
+            case EVENT_BIND_VIEW_HOLDER: return "bindViewHolder";
+            case EVENT_INSTANTIATE_ITEM: return "instantiateItem";
+            case EVENT_DESTROY_ITEM: return "destroyItem";
+            case EVENT_DISCARD_ANIMATION: return "discardAnimation";
+            case EVENT_COLLAPSE_ANIMATION: return "collapseAnimation";
+            case EVENT_SWIPE_SETTLE_ANIMATION: return "swipeSettleAnimation";
+            default: return "event" + event;
+        }
+    }
+
+    public static String lookupName(int result) {
+        switch (result) {
+            case LOOKUP_CACHE_HIT: return "cacheHit";
+            case LOOKUP_PREFETCH_HIT: return "prefetchHit";
+            case LOOKUP_POOL_HIT: return "poolHit";
+            case LOOKUP_MISS: return "miss";
+            case LOOKUP_PLACEHOLDER: return "placeholder";
+            default: return "lookup" + result;
+        }
+    }
+}
@@ -1,20 +1,19 @@
 package com.quarkworks.dynamicviewpager;
 
 import android.content.Context;
+import android.os.Build;
 import android.support.annotation.Nullable;
 import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewCompat;
 import android.support.v4.view.ViewPager;
 import android.util.AttributeSet;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
-import android.view.animation.AccelerateInterpolator;
-import android.view.animation.Animation;
-import android.view.animation.DecelerateInterpolator;
-import android.view.animation.TranslateAnimation;
+import android.view.ViewConfiguration;
 
-import com.quarkworks.dynamicviewpager.helpers.RealTranslateAnimation;
-import com.quarkworks.dynamicviewpager.helpers.SimpleAnimationListener;
+import com.quarkworks.dynamicviewpager.helpers.DragTracker;
+import com.quarkworks.dynamicviewpager.helpers.SwipeGestureClassifier;
 
 /**
  * Listens for swipe and drag-and-drop gestures on children to delete items with animations.
@@ -30,6 +29,61 @@ public class SwipeRemovalViewPager extends ViewPager {
 
     private GestureDetector swipeGestureDetector;
     private SwipeGestureListener swipeGestureListener;
+    private final SwipeGestureClassifier gestureClassifier = new SwipeGestureClassifier();
+
+    private PagePrefetcher pagePrefetcher;
+
+    /**
+     * Null below API 14, where there are no trim callbacks.
+     */
+    @Nullable private MemoryTrimmer memoryTrimmer;
+    private int requestedOffscreenPageLimit = 1;
+    private int lowMemoryOffscreenPageLimit = 1;
+    private boolean isLowMemory = false;
+
+    private final DragTracker dragTracker = new DragTracker();
+    private int maximumFlingVelocity;
+
+    /**
+     * Touch events can arrive several times per frame, so drags only record where the page
+     * should be and it is moved once per frame.
+     */
+    @Nullable private View draggedView;
+    private float draggedTranslationY = 0;
+    private boolean isDragFramePosted = false;
+
+    private final Runnable dragFrame = new Runnable() {
+        @Override
+        public void run() {
+            isDragFramePosted = false;
+            applyDragTranslation();
+        }
+    };
+
+    @Nullable private PagerMetricsListener metricsListener;
+    private long settleStartNs = 0;
+
+    @Nullable private SwipeSettleAnimation runningSettleAnimation;
+
+    private final SwipeSettleAnimation.Listener settleListener = new SwipeSettleAnimation.Listener() {
+        @Override
+        public void onSettleFinished(View view, boolean dismissed) {
+            runningSettleAnimation = null;
+            reportSettleAnimation();
+
+            if(dismissed) {
+                dynamicPagerAdapter.collapseViewsIn(view);
+            } else {
+                dynamicPagerAdapter.setViewAnimating(false);
+            }
+        }
+
+        @Override
+        public void onSettleCanceled(View view) {
+            runningSettleAnimation = null;
+            dynamicPagerAdapter.setViewAnimating(false);
+        }
+    };
 
     public SwipeRemovalViewPager(Context context) {
         super(context);
@@ -44,6 +98,17 @@ public class SwipeRemovalViewPager extends ViewPager {
     private void initialize() {
         swipeGestureListener = new SwipeGestureListener();
         swipeGestureDetector = new GestureDetector(getContext(), swipeGestureListener);
+        ViewConfiguration viewConfiguration = ViewConfiguration.get(getContext());
+        maximumFlingVelocity = viewConfiguration.getScaledMaximumFlingVelocity();
+        gestureClassifier.setTouchSlop(viewConfiguration.getScaledTouchSlop());
+
+        pagePrefetcher = new PagePrefetcher(this);
+        addOnPageChangeListener(pagePrefetcher);
+
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            memoryTrimmer = new MemoryTrimmer(this);
+            setLowMemory(memoryTrimmer.isLowRamDevice());
+        }
     }
 
     @Override
@@ -54,7 +119,142 @@ public class SwipeRemovalViewPager extends ViewPager {
         }
 
         dynamicPagerAdapter = (DynamicPagerAdapter) adapter;
-        super.setAdapter(adapter);
+        dynamicPagerAdapter.setMinLoopingCount(getOffscreenPageLimit() * 2 + 1);
+
+        if(dynamicPagerAdapter.isLooping()) {
+            super.setAdapter(dynamicPagerAdapter.getLoopingAdapter());
+            setCurrentItem(dynamicPagerAdapter.getLoopingStartPosition(), false);
+        } else {
+            super.setAdapter(adapter);
+        }
+        pagePrefetcher.schedule();
+    }
+
+    /**
+     * When enabled (the default), the page just outside of the offscreen page limit is created
+     * and bound while the main thread is idle between frames, so paging over to it only has to
+     * attach it.
+     */
+    public void setPrefetchEnabled(boolean enabled) {
+        pagePrefetcher.setEnabled(enabled);
+    }
+
+    public boolean isPrefetchEnabled() {
+        return pagePrefetcher.isEnabled();
+    }
+
+    /**
+     * Sets the number of pages to keep on either side of the current one, like ViewPager does.
+     * While memory is low (see {@link #setMemoryTrimmingEnabled(boolean)}), at most
+     * {@link #getLowMemoryOffscreenPageLimit()} are kept until memory recovers.
+     */
+    @Override
+    public void setOffscreenPageLimit(int limit) {
+        requestedOffscreenPageLimit = limit;
+        applyOffscreenPageLimit();
+    }
+
+    /**
+     * The offscreen page limit to fall back to under memory pressure and on low RAM devices. The
+     * default is 1.
+     */
+    public void setLowMemoryOffscreenPageLimit(int limit) {
+        lowMemoryOffscreenPageLimit = limit;
+        applyOffscreenPageLimit();
+    }
+
+    public int getLowMemoryOffscreenPageLimit() {
+        return lowMemoryOffscreenPageLimit;
+    }
+
+    /**
+     * When enabled (the default), the offscreen window shrinks and the adapter drops pooled and
+     * prefetched pages when the system reports memory pressure, then the window grows back once
+     * it eases. Requires API 14; this does nothing below that.
+     */
+    public void setMemoryTrimmingEnabled(boolean enabled) {
+        if(memoryTrimmer != null) {
+            memoryTrimmer.setEnabled(enabled);
+        }
+    }
+
+    public boolean isMemoryTrimmingEnabled() {
+        return memoryTrimmer != null && memoryTrimmer.isEnabled();
+    }
+
+    void setLowMemory(boolean lowMemory) {
+        if(isLowMemory != lowMemory) {
+            isLowMemory = lowMemory;
+            applyOffscreenPageLimit();
+        }
+    }
+
+    private void applyOffscreenPageLimit() {
+        int limit = isLowMemory
+                ? Math.min(requestedOffscreenPageLimit, lowMemoryOffscreenPageLimit)
+                : requestedOffscreenPageLimit;
+
+        if(limit != getOffscreenPageLimit()) {
+            if(dynamicPagerAdapter != null) {
+                dynamicPagerAdapter.setMinLoopingCount(limit * 2 + 1);
+            }
+            super.setOffscreenPageLimit(limit);
+        }
+    }
+
+    /**
+     * The classifier that decides whether a drag swipes the current page away or pages. Use it
+     * to change the angle, touch slop and fling velocity thresholds.
+     */
+    public SwipeGestureClassifier getSwipeGestureClassifier() {
+        return gestureClassifier;
+    }
+
+    /**
+     * Reports how long the animations that settle a dragged or flung page take. Pass the same
+     * listener to {@link DynamicPagerAdapter#setMetricsListener} to get the adapter's timings too.
+     */
+    public void setMetricsListener(@Nullable PagerMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    private void reportSettleAnimation() {
+        if (metricsListener != null) {
+            metricsListener.onTimedEvent(PagerMetricsListener.EVENT_SWIPE_SETTLE_ANIMATION,
+                    DynamicPagerAdapter.DEFAULT_VIEW_TYPE, System.nanoTime() - settleStartNs);
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+
+        if(memoryTrimmer != null) {
+            memoryTrimmer.register();
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+
+        if(visibility == VISIBLE && memoryTrimmer != null) {
+            memoryTrimmer.onVisible();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        pagePrefetcher.cancel();
+
+        if(memoryTrimmer != null) {
+            memoryTrimmer.unregister();
+        }
+
+        removeCallbacks(dragFrame);
+        isDragFramePosted = false;
+        draggedView = null;
+        super.onDetachedFromWindow();
     }
 
     public DynamicPagerAdapter getDynamicPagerAdapter() {
@@ -62,63 +262,63 @@ public class SwipeRemovalViewPager extends ViewPager {
     }
 
     @Nullable public View getCurrentView() {
-        return dynamicPagerAdapter.getViewAt(getCurrentItem());
+        return dynamicPagerAdapter.getViewAt(getCurrentPosition());
+    }
+
+    /**
+     * @return the adapter position of the current item. Unlike {@link #getCurrentItem()}, this
+     * is a data index in looping mode too (see {@link DynamicPagerAdapter#setLooping(boolean)}).
+     */
+    public int getCurrentPosition() {
+        return dynamicPagerAdapter.toDataPosition(getCurrentItem());
+    }
+
+    /**
+     * Goes to the adapter position given. In looping mode, the pager goes the short way around
+     * the loop.
+     */
+    public void setCurrentPosition(int position, boolean smoothScroll) {
+        setCurrentItem(dynamicPagerAdapter.toPagerPosition(position, getCurrentItem()), smoothScroll);
     }
 
     @Override
     public boolean dispatchTouchEvent(MotionEvent ev) {
 
+        /**
+         * A new touch doesn't wait for pages to settle and collapse, it finishes them right away
+         * so the user can keep swiping pages off as fast as they like.
+         */
+        if(ev.getActionMasked() == MotionEvent.ACTION_DOWN && dynamicPagerAdapter.isViewAnimating()) {
+            if(runningSettleAnimation != null) {
+                runningSettleAnimation.fastForward();
+            }
+            dynamicPagerAdapter.fastForwardDiscards();
+        }
+
         if(dynamicPagerAdapter.isViewAnimating()) {
             return true;
         }
 
+        trackDrag(ev);
+
         boolean handled = swipeGestureDetector.onTouchEvent(ev);
 
         if(!handled) {
             if(ev.getActionMasked() == MotionEvent.ACTION_UP) {
                 final View view = getCurrentView();
 
-                if(view != null && (view.getAnimation() == null || view.getAnimation().hasEnded()) && swipeGestureListener.isScrolling()) {
-
-                    final float toYDelta;
-                    final boolean deleting;
+                if(view != null && swipeGestureListener.isScrolling()) {
 
                     final float screenHeight = getRootView().getHeight();
                     final float dropBarrier = screenHeight * 0.2f;
 
-                    if(Math.abs(view.getTranslationY()) > dropBarrier) {
-                        deleting = true;
-
-                        final float actualY = view.getY() + view.getTranslationY();
+                    final float velocityY = dragTracker.getVelocityY();
 
-                        if(view.getTranslationY() < 0) {
-                            toYDelta = -view.getHeight();
-                        } else {
-                            toYDelta = actualY + view.getHeight();
-                        }
+                    if(Math.abs(view.getTranslationY()) > dropBarrier) {
+                        settleCurrentView(Math.signum(view.getTranslationY()), velocityY);
                     } else {
-                        deleting = false;
-                        toYDelta = -view.getTranslationY();
+                        settleCurrentView(0, velocityY);
                     }
-
-                    RealTranslateAnimation translateAnimation = new RealTranslateAnimation(view, 0, 0, 0, toYDelta);
-                    translateAnimation.setDuration(400);
-                    translateAnimation.setFillAfter(true);
-                    translateAnimation.setInterpolator(new AccelerateInterpolator());
-
-                    translateAnimation.setAnimationListener(new SimpleAnimationListener() {
-                        @Override
-                        public void onAnimationEnd(Animation animation) {
-                            if(deleting) {
-                                dynamicPagerAdapter.collapseViewsIn(view);
-                            } else {
-                                dynamicPagerAdapter.setViewAnimating(false);
-                            }
-                        }
-                    });
-
-                    view.startAnimation(translateAnimation);
-                    dynamicPagerAdapter.setViewAnimating(true);
                 }
             }
         }
@@ -126,6 +326,94 @@ public class SwipeRemovalViewPager extends ViewPager {
         return swipeGestureListener.isScrolling() || dynamicPagerAdapter.isViewAnimating() || super.dispatchTouchEvent(ev);
     }
 
+    /**
+     * Feeds every sample of the event, including the ones batched since the last event, to the
+     * drag tracker. The velocity is worked out on release, before the GestureDetector sees the
+     * event, so onFling and the drop below use the same estimate.
+     */
+    private void trackDrag(MotionEvent ev) {
+        switch(ev.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                dragTracker.clear();
+                dragTracker.addSample(ev.getEventTime(), ev.getX(), ev.getY());
+                break;
+
+            case MotionEvent.ACTION_MOVE:
+                for(int i = 0; i < ev.getHistorySize(); i++) {
+                    dragTracker.addSample(ev.getHistoricalEventTime(i), ev.getHistoricalX(i), ev.getHistoricalY(i));
+                }
+                dragTracker.addSample(ev.getEventTime(), ev.getX(), ev.getY());
+                break;
+
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                dragTracker.computeVelocity(ev.getEventTime(), maximumFlingVelocity);
+                applyDragTranslation();
+                break;
+        }
+    }
+
+    /**
+     * Moves the page to where the drag is, at most once per frame.
+     */
+    private void postDragTranslation(View view, float translationY) {
+        draggedView = view;
+        draggedTranslationY = translationY;
+
+        if(!isDragFramePosted) {
+            isDragFramePosted = true;
+            ViewCompat.postOnAnimation(this, dragFrame);
+        }
+    }
+
+    /**
+     * Applies a drag translation that is waiting for the next frame right away.
+     */
+    private void applyDragTranslation() {
+        if(isDragFramePosted) {
+            removeCallbacks(dragFrame);
+            isDragFramePosted = false;
+        }
+
+        if(draggedView != null) {
+            draggedView.setTranslationY(draggedTranslationY);
+            draggedView = null;
+        }
+    }
+
+    /**
+     * Lets the current page go with the velocity it was released at, either springing it back into
+     * place or throwing it off the screen and collapsing the pages around it.
+     *
+     * @param dismissDirection -1 to throw the page up, 1 to throw it down, 0 to spring it back.
+     * @param velocityY The release velocity in px/s.
+     */
+    private void settleCurrentView(float dismissDirection, float velocityY) {
+        DynamicPagerAdapter.ViewHolder viewHolder = dynamicPagerAdapter.getViewHolderAt(getCurrentPosition());
+        if(viewHolder == null) {
+            return;
+        }
+
+        SwipeSettleAnimation settleAnimation = viewHolder.settleAnimation;
+        if(settleAnimation == null) {
+            settleAnimation = new SwipeSettleAnimation(viewHolder.view);
+            viewHolder.settleAnimation = settleAnimation;
+        }
+
+        settleStartNs = System.nanoTime();
+        runningSettleAnimation = settleAnimation;
+
+        if(dismissDirection != 0) {
+            //Far enough to clear the screen from wherever the page is laid out
+            float distance = Math.max(getRootView().getHeight(), viewHolder.view.getBottom());
+            settleAnimation.startDismiss(dismissDirection * distance, velocityY, settleListener);
+        } else {
+            settleAnimation.startSnapBack(velocityY, settleListener);
+        }
+
+        dynamicPagerAdapter.setViewAnimating(true);
+    }
+
     /**
      * A GestureListener for swipe gestures
      */
@@ -139,6 +427,7 @@ public class SwipeRemovalViewPager extends ViewPager {
             View view = getCurrentView();
             initialTransY = view == null ? 0 : view.getTranslationY();
 
+            gestureClassifier.down(e.getRawX(), e.getRawY());
             isScrolling = false;
             return true;
         }
@@ -146,19 +435,14 @@ public class SwipeRemovalViewPager extends ViewPager {
         @Override
         public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
 
-            float difX = e2.getRawX() - e1.getRawX();
-            float difY = e2.getRawY() - e1.getRawY();
-
-            double rad = Math.tanh((double)(difX / difY));
-            double deg = Math.toDegrees(rad);
-
-            if(Math.abs(deg) > 30.0) {
+            //Only the first move out of the touch slop is classified, the direction is locked after that
+            if(gestureClassifier.move(e2.getRawX(), e2.getRawY()) != SwipeGestureClassifier.DIRECTION_VERTICAL) {
                 return false;
             }
 
             View view = getCurrentView();
             if(view != null) {
-                view.setTranslationY(initialTransY + difY);
+                postDragTranslation(view, initialTransY + e2.getRawY() - gestureClassifier.getDownY());
                 isScrolling = true;
                 return true;
             }
@@ -173,46 +457,20 @@ public class SwipeRemovalViewPager extends ViewPager {
                 return false;
             }
 
-            double rad = Math.tanh((double)(velocityX / velocityY));
-            double deg = Math.toDegrees(rad);
+            //The drag tracker's estimate includes the batched samples the GestureDetector skips
+            velocityX = dragTracker.getVelocityX();
+            velocityY = dragTracker.getVelocityY();
 
-            if(Math.abs(view.getTranslationY()) > 150 && Math.abs(deg) <= 30.0 && Math.abs(velocityY) > 500.0f) {
+            if(isScrolling && Math.abs(view.getTranslationY()) > 150 && gestureClassifier.isVerticalFling(velocityX, velocityY)) {
 
                 final float screenHeight = getRootView().getHeight();
-                final float toYDelta;
-
                 final float flingSpeedBarrier = screenHeight * 2;
 
-                if(velocityY < -flingSpeedBarrier) {
-                    toYDelta = -screenHeight * 2;
-
-                } else if(velocityY > flingSpeedBarrier) {
-                    toYDelta = screenHeight * 2;
-
-                } else {
+                if(Math.abs(velocityY) <= flingSpeedBarrier) {
                     return false;
                 }
 
-                float duration = toYDelta / velocityY * 1000.0f;
-
-                if(duration > 400.0f) {
-                    duration = 400.0f;
-                }
-
-                TranslateAnimation translateAnimation = new TranslateAnimation(0, 0, 0, toYDelta);
-                translateAnimation.setDuration((long)duration);
-                translateAnimation.setFillAfter(true);
-                translateAnimation.setInterpolator(new DecelerateInterpolator());
-
-                translateAnimation.setAnimationListener(new SimpleAnimationListener() {
-                    @Override
-                    public void onAnimationEnd(Animation animation) {
-                        dynamicPagerAdapter.collapseViewsIn(view);
-                    }
-                });
-
-                view.startAnimation(translateAnimation);
-                dynamicPagerAdapter.setViewAnimating(true);
+                settleCurrentView(Math.signum(velocityY), velocityY);
 
                 return true;
             }
@@ -0,0 +1,137 @@
+package com.quarkworks.dynamicviewpager;
+
+import android.support.annotation.Nullable;
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+
+import com.quarkworks.dynamicviewpager.helpers.SpringFlingSimulation;
+
+/**
+ * Drives a {@link SpringFlingSimulation} on a page's translationY, one step per frame, after the
+ * user lets go of it in {@link SwipeRemovalViewPager}. Each ViewHolder gets one of these the
+ * first time it is swiped and keeps it, so settling never allocates. The page is drawn from a
+ * hardware layer while it settles, so each frame only moves the layer.
+ */
+class SwipeSettleAnimation implements Runnable {
+    private static final String TAG = SwipeSettleAnimation.class.getSimpleName();
+
+    /**
+     * Caps a single step so a long stall doesn't throw the page across the screen in one frame.
+     */
+    private static final float MAX_STEP_SECONDS = 1.0f / 30.0f;
+
+    interface Listener {
+        void onSettleFinished(View view, boolean dismissed);
+
+        void onSettleCanceled(View view);
+    }
+
+    private final View view;
+    private final SpringFlingSimulation simulation = new SpringFlingSimulation();
+
+    @Nullable private Listener listener;
+    private boolean isDismissing = false;
+    private long lastFrameNs = 0;
+    private int previousLayerType = View.LAYER_TYPE_NONE;
+
+    SwipeSettleAnimation(View view) {
+        this.view = view;
+    }
+
+    SpringFlingSimulation getSimulation() {
+        return simulation;
+    }
+
+    /**
+     * Throws the page to the translation given, starting at the velocity given in px/s.
+     */
+    void startDismiss(float targetTranslationY, float velocityY, Listener listener) {
+        simulation.startFling(view.getTranslationY(), velocityY, targetTranslationY);
+        start(true, listener);
+    }
+
+    /**
+     * Springs the page back to no translation, starting at the velocity given in px/s.
+     */
+    void startSnapBack(float velocityY, Listener listener) {
+        simulation.startSpring(view.getTranslationY(), velocityY, 0);
+        start(false, listener);
+    }
+
+    private void start(boolean dismissing, Listener listener) {
+        boolean wasRunning = this.listener != null;
+
+        this.listener = listener;
+        this.isDismissing = dismissing;
+
+        if (!wasRunning) {
+            previousLayerType = view.getLayerType();
+            view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        }
+
+        lastFrameNs = System.nanoTime();
+        view.removeCallbacks(this);
+        ViewCompat.postOnAnimation(view, this);
+    }
+
+    boolean isRunning() {
+        return listener != null;
+    }
+
+    /**
+     * Stops the page where it is and tells the listener, if it was settling.
+     */
+    void cancel() {
+        Listener listener = this.listener;
+        if (listener == null) {
+            return;
+        }
+
+        simulation.cancel();
+        end();
+        listener.onSettleCanceled(view);
+    }
+
+    /**
+     * Jumps the page to where it was settling to and tells the listener right away.
+     */
+    void fastForward() {
+        Listener listener = this.listener;
+        if (listener == null) {
+            return;
+        }
+
+        simulation.finish();
+        view.setTranslationY(simulation.getPosition());
+        end();
+        listener.onSettleFinished(view, isDismissing);
+    }
+
+    @Override
+    public void run() {
+        Listener listener = this.listener;
+        if (listener == null) {
+            return;
+        }
+
+        long nowNs = System.nanoTime();
+        float deltaSeconds = Math.min((nowNs - lastFrameNs) / 1000000000.0f, MAX_STEP_SECONDS);
+        lastFrameNs = nowNs;
+
+        boolean running = simulation.step(deltaSeconds);
+        view.setTranslationY(simulation.getPosition());
+
+        if (running) {
+            ViewCompat.postOnAnimation(view, this);
+        } else {
+            end();
+            listener.onSettleFinished(view, isDismissing);
+        }
+    }
+
+    private void end() {
+        view.removeCallbacks(this);
+        view.setLayerType(previousLayerType, null);
+        listener = null;
+    }
+}
@@ -0,0 +1,168 @@
+package com.quarkworks.dynamicviewpager;
+
+import android.support.v4.util.LruCache;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+
+import com.quarkworks.dynamicviewpager.helpers.PriorityExecutor;
+
+import java.util.HashSet;
+
+/**
+ * Lays text out ahead of time for {@link TextLayoutView}s, so binding a page with paragraphs of
+ * text only hands the view a finished {@link Layout} instead of measuring and breaking lines on
+ * the main thread.
+ *
+ * Layouts are keyed by item ID and width and kept in an LRU. Precompute the pages around the
+ * current one off the main thread from
+ * {@link DynamicPagerAdapter#onPrefetchPosition(int, int)}, then get them in
+ * {@link DynamicPagerAdapter#onBindViewHolder(DynamicPagerAdapter.ViewHolder, int)} with
+ * {@link TextLayoutView#setText(TextLayoutCache, long, CharSequence)}. A layout that isn't ready
+ * is built on the main thread as a fallback.
+ *
+ * The width is learned from the first TextLayoutView measured, and nothing is precomputed until
+ * then. Every view using a cache must lay text out at the same width with the cache's paint.
+ */
+public class TextLayoutCache {
+    private static final String TAG = TextLayoutCache.class.getSimpleName();
+
+    public static final int DEFAULT_MAX_LAYOUTS = 32;
+
+    private static final class Entry {
+        final CharSequence text;
+        final int width;
+        final Layout layout;
+
+        Entry(CharSequence text, int width, Layout layout) {
+            this.text = text;
+            this.width = width;
+            this.layout = layout;
+        }
+    }
+
+    private final TextPaint paint;
+    private final LruCache<Long, Entry> layouts;
+    private final HashSet<Long> pendingItemIds = new HashSet<>();
+    private final PriorityExecutor layoutExecutor = new PriorityExecutor(1);
+
+    private Layout.Alignment alignment = Layout.Alignment.ALIGN_NORMAL;
+    private int width = 0;
+
+    /**
+     * Incremented whenever the layouts are dropped, so layouts built before are dropped too.
+     */
+    private int generation = 0;
+
+    public TextLayoutCache(TextPaint paint) {
+        this(paint, DEFAULT_MAX_LAYOUTS);
+    }
+
+    /**
+     * @param paint Used to lay out and draw the text, on the main thread and a background one.
+     *              It must not be changed afterwards.
+     * @param maxLayouts The number of layouts to keep.
+     */
+    public TextLayoutCache(TextPaint paint, int maxLayouts) {
+        this.paint = paint;
+        this.layouts = new LruCache<>(maxLayouts);
+    }
+
+    public TextPaint getPaint() {
+        return paint;
+    }
+
+    /**
+     * Drops every layout if the alignment changes.
+     */
+    public void setAlignment(Layout.Alignment alignment) {
+        if (alignment != this.alignment) {
+            this.alignment = alignment;
+            clear();
+        }
+    }
+
+    /**
+     * Set by {@link TextLayoutView} when it is measured. Layouts at another width are rebuilt as
+     * they are needed.
+     */
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the layout of the text given at the current width, building it on the main thread
+     * if it hasn't been precomputed.
+     */
+    public Layout getLayout(long itemId, CharSequence text) {
+        Entry entry = layouts.get(itemId);
+        if (entry != null && entry.width == width && TextUtils.equals(entry.text, text)) {
+            return entry.layout;
+        }
+
+        Layout layout = buildLayout(text, width, alignment);
+        layouts.put(itemId, new Entry(text, width, layout));
+        return layout;
+    }
+
+    /**
+     * Lays out the text given on a background thread unless it already is or is being. The text
+     * must not be modified afterwards.
+     *
+     * @param priority Lower is laid out first, usually the distance from the current item.
+     */
+    public void precompute(final long itemId, final CharSequence text, int priority) {
+        final int layoutWidth = width;
+        final Layout.Alignment layoutAlignment = alignment;
+        final int layoutGeneration = generation;
+        if (layoutWidth <= 0 || pendingItemIds.contains(itemId)) {
+            return;
+        }
+
+        Entry entry = layouts.get(itemId);
+        if (entry != null && entry.width == layoutWidth && TextUtils.equals(entry.text, text)) {
+            return;
+        }
+
+        pendingItemIds.add(itemId);
+        layoutExecutor.execute(new PriorityExecutor.Task() {
+            @Override
+            public void run() {
+                final Layout layout = buildLayout(text, layoutWidth, layoutAlignment);
+
+                MainThreadDispatcher.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        pendingItemIds.remove(itemId);
+
+                        //Dropped if the width changed or the cache was cleared meanwhile
+                        if (layoutWidth == width && layoutGeneration == generation) {
+                            layouts.put(itemId, new Entry(text, layoutWidth, layout));
+                        }
+                    }
+                });
+            }
+        }, priority);
+    }
+
+    public void remove(long itemId) {
+        layouts.remove(itemId);
+    }
+
+    public void clear() {
+        generation++;
+        layouts.evictAll();
+    }
+
+    /**
+     * Only reads the paint, so it can run on the main thread and a background one at once.
+     */
+    private Layout buildLayout(CharSequence text, int layoutWidth, Layout.Alignment layoutAlignment) {
+        return new StaticLayout(text, paint, Math.max(0, layoutWidth), layoutAlignment, 1.0f, 0.0f, true);
+    }
+}
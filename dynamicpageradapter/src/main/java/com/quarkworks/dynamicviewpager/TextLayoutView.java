@@ -0,0 +1,112 @@
+package com.quarkworks.dynamicviewpager;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.support.annotation.Nullable;
+import android.text.Layout;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * Draws a {@link Layout} laid out ahead of time by a {@link TextLayoutCache}. Unlike a TextView,
+ * setting its text never measures or breaks lines: the Layout is only drawn. Its height is the
+ * Layout's height; its width should be match_parent or a fixed size, since the text is laid out
+ * to fit it.
+ */
+public class TextLayoutView extends View {
+    private static final String TAG = TextLayoutView.class.getSimpleName();
+
+    @Nullable private Layout layout;
+
+    /**
+     * What was last set with {@link #setText}, to lay out again when the width changes.
+     */
+    @Nullable private TextLayoutCache cache;
+    private long itemId;
+    @Nullable private CharSequence text;
+
+    public TextLayoutView(Context context) {
+        super(context);
+    }
+
+    public TextLayoutView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public TextLayoutView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * Shows the text of an item, laid out by the cache given.
+     */
+    public void setText(TextLayoutCache cache, long itemId, CharSequence text) {
+        this.cache = cache;
+        this.itemId = itemId;
+        this.text = text;
+
+        //The cache learns the width when this is first measured
+        if (cache.getWidth() <= 0) {
+            applyTextLayout(null);
+            return;
+        }
+
+        applyTextLayout(cache.getLayout(itemId, text));
+    }
+
+    /**
+     * Shows a Layout built elsewhere. It isn't laid out again if the width changes.
+     */
+    public void setTextLayout(@Nullable Layout layout) {
+        cache = null;
+        text = null;
+        applyTextLayout(layout);
+    }
+
+    private void applyTextLayout(@Nullable Layout layout) {
+        if (layout == this.layout) {
+            return;
+        }
+
+        int oldHeight = this.layout == null ? 0 : this.layout.getHeight();
+        this.layout = layout;
+
+        if (layout == null || layout.getHeight() != oldHeight) {
+            requestLayout();
+        }
+        invalidate();
+    }
+
+    @Nullable
+    public Layout getTextLayout() {
+        return layout;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int textWidth = width - getPaddingLeft() - getPaddingRight();
+
+        if (cache != null && text != null && textWidth > 0
+                && (layout == null || layout.getWidth() != textWidth)) {
+            cache.setWidth(textWidth);
+            layout = cache.getLayout(itemId, text);
+        }
+
+        int textHeight = layout == null ? 0 : layout.getHeight();
+        int height = resolveSize(textHeight + getPaddingTop() + getPaddingBottom(), heightMeasureSpec);
+        setMeasuredDimension(width, height);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (layout == null) {
+            return;
+        }
+
+        int saveCount = canvas.save();
+        canvas.translate(getPaddingLeft(), getPaddingTop());
+        layout.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+}
@@ -0,0 +1,327 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The queue of discards waiting in DynamicPagerAdapter for the one in flight to finish. Entries
+ * are pooled and keep their position buffers, so queueing a discard, dequeuing it and shifting
+ * the positions of the ones behind it never allocate once warmed up. Positions are shifted along
+ * with the adapter's data as well, so a queued discard still removes the item it was asked to.
+ *
+ * @param <V> The type of View kept with an entry.
+ */
+public class DiscardQueue<V> {
+    private static final String TAG = DiscardQueue.class.getSimpleName();
+
+    private static final int MAX_POOL_SIZE = 16;
+
+    /**
+     * The item ID of positions whose item ID wasn't recorded.
+     */
+    public static final long NO_ITEM_ID = -1;
+
+    /**
+     * Finds where an item went after a data set change, for {@link #remap(PositionLookup)}.
+     */
+    public interface PositionLookup {
+        /**
+         * @return the item's new position, or a negative number if it was removed.
+         */
+        int findPosition(long itemId, int oldPosition);
+    }
+
+    /**
+     * One discard: a single position or a sorted batch of positions.
+     */
+    public static final class Entry<V> {
+        private int[] positions = new int[1];
+        private long[] itemIds = new long[1];
+        private int size = 0;
+        private boolean isBatch = false;
+
+        /**
+         * The View being discarded, for single discards that are in flight.
+         */
+        @Nullable public V view;
+
+        public void setSingle(int position) {
+            positions[0] = position;
+            itemIds[0] = NO_ITEM_ID;
+            size = 1;
+            isBatch = false;
+        }
+
+        /**
+         * @param sortedPositions Copied, so the caller can reuse the array.
+         */
+        public void setBatch(int[] sortedPositions, int count) {
+            if (positions.length < count) {
+                positions = new int[count];
+                itemIds = new long[count];
+            }
+
+            System.arraycopy(sortedPositions, 0, positions, 0, count);
+            Arrays.fill(itemIds, 0, count, NO_ITEM_ID);
+            size = count;
+            isBatch = true;
+        }
+
+        public boolean isBatch() {
+            return isBatch;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int get(int index) {
+            return positions[index];
+        }
+
+        /**
+         * Records the stable ID of the item at the index given, so its position can be found again
+         * by {@link #remap(PositionLookup)}.
+         */
+        public void setItemId(int index, long itemId) {
+            itemIds[index] = itemId;
+        }
+
+        public long getItemId(int index) {
+            return itemIds[index];
+        }
+
+        /**
+         * Moves the positions at or after positionStart up to make room for inserted items.
+         */
+        public void offsetForInsert(int positionStart, int itemCount) {
+            for (int i = 0; i < size; i++) {
+                if (positions[i] >= positionStart) {
+                    positions[i] += itemCount;
+                }
+            }
+        }
+
+        /**
+         * Drops the positions of removed items and moves the ones after them down.
+         */
+        public void offsetForRemove(int positionStart, int itemCount) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int position = positions[i];
+                if (position >= positionStart && position - positionStart < itemCount) {
+                    continue;
+                }
+
+                positions[kept] = position >= positionStart ? position - itemCount : position;
+                itemIds[kept] = itemIds[i];
+                kept++;
+            }
+            size = kept;
+        }
+
+        public void offsetForMove(int fromPosition, int toPosition) {
+            for (int i = 0; i < size; i++) {
+                int position = positions[i];
+                if (position == fromPosition) {
+                    positions[i] = toPosition;
+                } else if (fromPosition < toPosition && position > fromPosition && position <= toPosition) {
+                    positions[i] = position - 1;
+                } else if (fromPosition > toPosition && position >= toPosition && position < fromPosition) {
+                    positions[i] = position + 1;
+                }
+            }
+            sort();
+        }
+
+        /**
+         * Moves each position to wherever the lookup finds its item, dropping the ones it doesn't.
+         */
+        public void remap(PositionLookup lookup) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int position = lookup.findPosition(itemIds[i], positions[i]);
+                if (position < 0) {
+                    continue;
+                }
+
+                positions[kept] = position;
+                itemIds[kept] = itemIds[i];
+                kept++;
+            }
+            size = kept;
+            sort();
+        }
+
+        /**
+         * Insertion sort, since batches are small and mostly still in order, and the item IDs
+         * have to move along with their positions.
+         */
+        private void sort() {
+            for (int i = 1; i < size; i++) {
+                int position = positions[i];
+                long itemId = itemIds[i];
+
+                int j = i - 1;
+                while (j >= 0 && positions[j] > position) {
+                    positions[j + 1] = positions[j];
+                    itemIds[j + 1] = itemIds[j];
+                    j--;
+                }
+
+                positions[j + 1] = position;
+                itemIds[j + 1] = itemId;
+            }
+        }
+
+        /**
+         * @return the index of the position if it is part of this discard, otherwise
+         * -(the number of positions before it) - 1, like {@link Arrays#binarySearch}.
+         */
+        public int indexOf(int position) {
+            return Arrays.binarySearch(positions, 0, size, position);
+        }
+
+        /**
+         * @return how many of the positions in this discard are below the one given.
+         */
+        public int countBefore(int position) {
+            int index = indexOf(position);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        public int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+
+    private final ArrayList<Entry<V>> entries = new ArrayList<>();
+    private final ArrayList<Entry<V>> pool = new ArrayList<>(MAX_POOL_SIZE);
+
+    public DiscardQueue() {
+        this(2);
+    }
+
+    /**
+     * @param preallocated The number of entries to create up front.
+     */
+    public DiscardQueue(int preallocated) {
+        for (int i = 0; i < Math.min(preallocated, MAX_POOL_SIZE); i++) {
+            pool.add(new Entry<V>());
+        }
+    }
+
+    /**
+     * @return an empty entry. Hand it back with {@link #recycle} once its discard is finished.
+     */
+    public Entry<V> obtain() {
+        if (pool.isEmpty()) {
+            return new Entry<>();
+        }
+        return pool.remove(pool.size() - 1);
+    }
+
+    public void recycle(Entry<V> entry) {
+        entry.view = null;
+        entry.size = 0;
+
+        if (pool.size() < MAX_POOL_SIZE) {
+            pool.add(entry);
+        }
+    }
+
+    public void add(Entry<V> entry) {
+        entries.add(entry);
+    }
+
+    /**
+     * @return the oldest entry, or null if the queue is empty.
+     */
+    @Nullable
+    public Entry<V> poll() {
+        return entries.isEmpty() ? null : entries.remove(0);
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Updates the queued positions after the items of a finished discard were removed: positions
+     * after them move down, and positions that were discarded themselves are dropped along with
+     * any entries left empty.
+     */
+    public void removeDiscarded(Entry<V> discarded) {
+        if (discarded.size == 0 || discarded.positions[0] < 0) {
+            return;
+        }
+
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Entry<V> entry = entries.get(i);
+            int[] positions = entry.positions;
+            long[] itemIds = entry.itemIds;
+
+            int size = 0;
+            for (int j = 0; j < entry.size; j++) {
+                int index = discarded.indexOf(positions[j]);
+                if (index < 0) {
+                    positions[size] = positions[j] + index + 1;
+                    itemIds[size] = itemIds[j];
+                    size++;
+                }
+            }
+            entry.size = size;
+
+            dropIfEmpty(i);
+        }
+    }
+
+    /**
+     * See {@link Entry#offsetForInsert(int, int)}.
+     */
+    public void offsetForInsert(int positionStart, int itemCount) {
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).offsetForInsert(positionStart, itemCount);
+        }
+    }
+
+    /**
+     * See {@link Entry#offsetForRemove(int, int)}. Entries left empty are dropped.
+     */
+    public void offsetForRemove(int positionStart, int itemCount) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            entries.get(i).offsetForRemove(positionStart, itemCount);
+            dropIfEmpty(i);
+        }
+    }
+
+    public void offsetForMove(int fromPosition, int toPosition) {
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).offsetForMove(fromPosition, toPosition);
+        }
+    }
+
+    /**
+     * See {@link Entry#remap(PositionLookup)}. Entries left empty are dropped.
+     */
+    public void remap(PositionLookup lookup) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            entries.get(i).remap(lookup);
+            dropIfEmpty(i);
+        }
+    }
+
+    private void dropIfEmpty(int index) {
+        Entry<V> entry = entries.get(index);
+        if (entry.size == 0) {
+            entries.remove(index);
+            recycle(entry);
+        }
+    }
+}
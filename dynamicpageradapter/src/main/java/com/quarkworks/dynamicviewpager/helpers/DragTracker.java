@@ -0,0 +1,138 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+/**
+ * Keeps the recent touch samples of a drag, including the historical ones a MotionEvent batches
+ * between frames, and estimates the release velocity from them with a least squares fit. Touch
+ * panels often sample faster than the display refreshes, so the batched samples are most of what
+ * the finger did; fitting all of them gives a steadier velocity than the last two events.
+ *
+ * Samples go into fixed size ring buffers, so tracking a drag never allocates.
+ */
+public class DragTracker {
+    private static final String TAG = DragTracker.class.getSimpleName();
+
+    private static final int CAPACITY = 32;
+
+    /**
+     * Only samples this close to the newest one are fitted.
+     */
+    private static final long HORIZON_MS = 100;
+
+    /**
+     * If the finger hasn't moved for this long when it is released, it had stopped.
+     */
+    private static final long ASSUME_STOPPED_MS = 40;
+
+    private final long[] times = new long[CAPACITY];
+    private final float[] xs = new float[CAPACITY];
+    private final float[] ys = new float[CAPACITY];
+    private int newest = -1;
+    private int size = 0;
+
+    private float velocityX = 0;
+    private float velocityY = 0;
+
+    public void clear() {
+        newest = -1;
+        size = 0;
+        velocityX = 0;
+        velocityY = 0;
+    }
+
+    /**
+     * @param timeMs The event time of the sample, in ms. Samples have to be added in order.
+     */
+    public void addSample(long timeMs, float x, float y) {
+        newest = (newest + 1) % CAPACITY;
+        times[newest] = timeMs;
+        xs[newest] = x;
+        ys[newest] = y;
+        size = Math.min(size + 1, CAPACITY);
+    }
+
+    public int getSampleCount() {
+        return size;
+    }
+
+    public float getX() {
+        return size == 0 ? 0 : xs[newest];
+    }
+
+    public float getY() {
+        return size == 0 ? 0 : ys[newest];
+    }
+
+    /**
+     * Works out the velocity at the time given from the samples up to it.
+     *
+     * @param timeMs When the finger was released, in ms.
+     * @param maxVelocity The velocity is clamped to this, in px/s.
+     */
+    public void computeVelocity(long timeMs, float maxVelocity) {
+        velocityX = 0;
+        velocityY = 0;
+
+        if (size < 2 || timeMs - times[newest] > ASSUME_STOPPED_MS) {
+            return;
+        }
+
+        //Fit against times relative to the newest sample to keep the sums small
+        final long newestTime = times[newest];
+        int count = 0;
+        float sumT = 0, sumX = 0, sumY = 0;
+        for (int i = 0; i < size; i++) {
+            int index = (newest - i + CAPACITY) % CAPACITY;
+            long age = newestTime - times[index];
+            if (age > HORIZON_MS) {
+                break;
+            }
+
+            count++;
+            sumT -= age;
+            sumX += xs[index];
+            sumY += ys[index];
+        }
+
+        if (count < 2) {
+            return;
+        }
+
+        float meanT = sumT / count;
+        float meanX = sumX / count;
+        float meanY = sumY / count;
+        float sumTT = 0, sumTX = 0, sumTY = 0;
+        for (int i = 0; i < count; i++) {
+            int index = (newest - i + CAPACITY) % CAPACITY;
+            float t = (times[index] - newestTime) - meanT;
+            sumTT += t * t;
+            sumTX += t * (xs[index] - meanX);
+            sumTY += t * (ys[index] - meanY);
+        }
+
+        //All of the samples happened at the same time
+        if (sumTT == 0) {
+            return;
+        }
+
+        velocityX = clamp(sumTX / sumTT * 1000, maxVelocity);
+        velocityY = clamp(sumTY / sumTT * 1000, maxVelocity);
+    }
+
+    private static float clamp(float velocity, float maxVelocity) {
+        return Math.max(-maxVelocity, Math.min(maxVelocity, velocity));
+    }
+
+    /**
+     * @return the velocity from the last {@link #computeVelocity}, in px/s.
+     */
+    public float getVelocityX() {
+        return velocityX;
+    }
+
+    /**
+     * @return the velocity from the last {@link #computeVelocity}, in px/s.
+     */
+    public float getVelocityY() {
+        return velocityY;
+    }
+}
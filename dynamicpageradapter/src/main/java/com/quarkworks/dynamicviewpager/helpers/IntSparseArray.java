@@ -0,0 +1,260 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+import android.support.annotation.Nullable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Maps primitive int keys to Objects with strong references, in the spirit of Android's
+ * SparseArray. Keys are kept sorted in a primitive array and looked up with a binary search, so
+ * get(), put() and remove() never box the key and never allocate once the backing arrays have
+ * grown to fit.
+ */
+public class IntSparseArray<E> {
+    private static final String TAG = IntSparseArray.class.getSimpleName();
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private int[] keys;
+    private Object[] values;
+    private int size = 0;
+
+    @Nullable private Map<Integer, E> mapView;
+
+    public IntSparseArray() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntSparseArray(int initialCapacity) {
+        keys = new int[Math.max(initialCapacity, 1)];
+        values = new Object[keys.length];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Nullable
+    public E get(int key) {
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        return index < 0 ? null : valueAt(index);
+    }
+
+    public boolean containsKey(int key) {
+        return Arrays.binarySearch(keys, 0, size, key) >= 0;
+    }
+
+    /**
+     * @return the previous value for the key, or null if there wasn't one.
+     */
+    @Nullable
+    public E put(int key, E value) {
+        int index = Arrays.binarySearch(keys, 0, size, key);
+
+        if (index >= 0) {
+            E previous = valueAt(index);
+            values[index] = value;
+            return previous;
+        }
+
+        index = ~index;
+
+        if (size == keys.length) {
+            int newCapacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * @return the removed value, or null if the key was not mapped.
+     */
+    @Nullable
+    public E remove(int key) {
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        return index < 0 ? null : removeAt(index);
+    }
+
+    public E removeAt(int index) {
+        E previous = valueAt(index);
+
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+
+        size--;
+        values[size] = null;
+        return previous;
+    }
+
+    /**
+     * @return the index of the key, or a negative number if it is not mapped.
+     */
+    public int indexOfKey(int key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    /**
+     * Finds a value by identity (not equals()), like SparseArray.
+     *
+     * @return the index of the value, or -1 if it is not held.
+     */
+    public int indexOfValue(Object value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the first key greater than or equal to the key given, which is
+     * {@link #size()} if there is none.
+     */
+    public int ceilingIndexOfKey(int key) {
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        return index >= 0 ? index : ~index;
+    }
+
+    /**
+     * Adds delta to the keys in the index range [fromIndex, toIndex). The caller must make sure
+     * the shifted keys neither collide with nor pass the keys outside the range, which holds for
+     * the shifts caused by inserting, removing or moving items in a list.
+     */
+    public void offsetKeys(int fromIndex, int toIndex, int delta) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            keys[i] += delta;
+        }
+    }
+
+    public int keyAt(int index) {
+        return keys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public E valueAt(int index) {
+        return (E) values[index];
+    }
+
+    public void setValueAt(int index, E value) {
+        values[index] = value;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * A live Map view of this array for code written against the old boxed-key cache. Reads and
+     * writes go straight through to the array, but they box keys, so avoid it on hot paths.
+     */
+    public Map<Integer, E> asMap() {
+        if (mapView == null) {
+            mapView = new MapView();
+        }
+        return mapView;
+    }
+
+    private class MapView extends AbstractMap<Integer, E> {
+
+        private final Set<Entry<Integer, E>> entrySet = new AbstractSet<Entry<Integer, E>>() {
+            @Override
+            public Iterator<Entry<Integer, E>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+
+        @Override
+        public Set<Entry<Integer, E>> entrySet() {
+            return entrySet;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && IntSparseArray.this.containsKey((Integer) key);
+        }
+
+        @Override
+        public E get(Object key) {
+            return key instanceof Integer ? IntSparseArray.this.get((Integer) key) : null;
+        }
+
+        @Override
+        public E put(Integer key, E value) {
+            return IntSparseArray.this.put(key, value);
+        }
+
+        @Override
+        public E remove(Object key) {
+            return key instanceof Integer ? IntSparseArray.this.remove((Integer) key) : null;
+        }
+
+        @Override
+        public void clear() {
+            IntSparseArray.this.clear();
+        }
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<Integer, E>> {
+        private int index = 0;
+        private boolean canRemove = false;
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public Map.Entry<Integer, E> next() {
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
+
+            final int entryIndex = index++;
+            canRemove = true;
+
+            return new AbstractMap.SimpleEntry<Integer, E>(keyAt(entryIndex), valueAt(entryIndex)) {
+                @Override
+                public E setValue(E value) {
+                    super.setValue(value);
+                    return put(getKey(), value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+
+            removeAt(--index);
+            canRemove = false;
+        }
+    }
+}
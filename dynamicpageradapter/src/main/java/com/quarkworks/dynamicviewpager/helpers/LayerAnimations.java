@@ -0,0 +1,53 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+import android.support.annotation.Nullable;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.ViewPropertyAnimatorCompat;
+import android.support.v4.view.ViewPropertyAnimatorListener;
+import android.view.View;
+import android.view.animation.Interpolator;
+
+/**
+ * Translates Views with ViewPropertyAnimator instead of View Animations. The View's real
+ * translation is animated, and a hardware layer is enabled for the duration of the animation and
+ * removed at the end, so on API 16+ frames are drawn on the RenderThread from the cached layer
+ * rather than invalidating the View through the UI thread.
+ *
+ * A View only has one ViewPropertyAnimator, which keeps its listener and interpolator between
+ * animations, so every setting is applied on each call.
+ */
+public final class LayerAnimations {
+    private static final String TAG = LayerAnimations.class.getSimpleName();
+
+    private LayerAnimations() {}
+
+    /**
+     * Animates the View's translation to the values given and starts the animation right away.
+     *
+     * @param listener Note that onAnimationEnd() is also called when the animation is canceled.
+     */
+    public static ViewPropertyAnimatorCompat translateTo(View view, float translationX, float translationY,
+                                                         long duration, @Nullable Interpolator interpolator,
+                                                         @Nullable ViewPropertyAnimatorListener listener) {
+        ViewPropertyAnimatorCompat animator = ViewCompat.animate(view)
+                .translationX(translationX)
+                .translationY(translationY)
+                .setDuration(duration)
+                .setStartDelay(0)
+                .setInterpolator(interpolator)
+                .setListener(listener)
+                .withLayer();
+
+        animator.start();
+        return animator;
+    }
+
+    /**
+     * Stops any running translation where it is without notifying its listener.
+     */
+    public static void cancel(View view) {
+        ViewPropertyAnimatorCompat animator = ViewCompat.animate(view);
+        animator.setListener(null);
+        animator.cancel();
+    }
+}
@@ -0,0 +1,193 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+import android.support.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds a large data set as fixed size pages of items, of which only the most recently used are
+ * kept. Also tracks which pages are being loaded so each is only requested once, and which
+ * failed to load so they aren't requested over and over.
+ *
+ * Like the adapters using it, this is meant to be used from the main thread only.
+ *
+ * @param <T> The type of item.
+ */
+public class PagedItemCache<T> {
+    private static final String TAG = PagedItemCache.class.getSimpleName();
+
+    private final int pageSize;
+    private int maxPages;
+
+    /**
+     * In access order, so the eldest entry is the least recently used page.
+     */
+    private final LinkedHashMap<Integer, List<T>> pages = new LinkedHashMap<Integer, List<T>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+            return size() > maxPages;
+        }
+    };
+
+    private final HashSet<Integer> loadingPages = new HashSet<>();
+
+    /**
+     * Failed attempts of pages still being loaded, and the pages given up on.
+     */
+    private final HashMap<Integer, Integer> failedAttempts = new HashMap<>();
+    private final HashSet<Integer> failedPages = new HashSet<>();
+
+    /**
+     * @param pageSize The number of items per page.
+     * @param maxPages The number of loaded pages to keep.
+     */
+    public PagedItemCache(int pageSize, int maxPages) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+
+        this.pageSize = pageSize;
+        setMaxPages(maxPages);
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the number of loaded pages to keep. The least recently used are dropped first.
+     */
+    public void setMaxPages(int maxPages) {
+        if (maxPages <= 0) {
+            throw new IllegalArgumentException("maxPages must be positive");
+        }
+
+        this.maxPages = maxPages;
+
+        while (pages.size() > maxPages) {
+            Integer eldest = pages.keySet().iterator().next();
+            pages.remove(eldest);
+        }
+    }
+
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    /**
+     * @return the index of the page holding the position given.
+     */
+    public int pageOf(int position) {
+        return position / pageSize;
+    }
+
+    /**
+     * @return the item at the position given, or null if its page isn't loaded. Marks the page as
+     * the most recently used.
+     */
+    @Nullable
+    public T get(int position) {
+        List<T> page = pages.get(pageOf(position));
+        if (page == null) {
+            return null;
+        }
+
+        int index = position - pageOf(position) * pageSize;
+        return index < page.size() ? page.get(index) : null;
+    }
+
+    public boolean isLoaded(int pageIndex) {
+        return pages.containsKey(pageIndex);
+    }
+
+    public boolean isLoading(int pageIndex) {
+        return loadingPages.contains(pageIndex);
+    }
+
+    /**
+     * @return True if the page should be requested: it is neither loaded, being loaded nor given
+     * up on. It is marked as being loaded in that case.
+     */
+    public boolean startLoading(int pageIndex) {
+        if (isLoaded(pageIndex) || isLoading(pageIndex) || hasFailed(pageIndex)) {
+            return false;
+        }
+
+        loadingPages.add(pageIndex);
+        return true;
+    }
+
+    /**
+     * Stores a loaded page as the most recently used one, possibly dropping the least recently
+     * used.
+     *
+     * @param items At most {@link #getPageSize()} items, starting at the first position of the
+     *              page. The list is kept, so it must not be modified afterwards.
+     */
+    public void putPage(int pageIndex, List<T> items) {
+        loadingPages.remove(pageIndex);
+        failedAttempts.remove(pageIndex);
+        failedPages.remove(pageIndex);
+        pages.put(pageIndex, items);
+    }
+
+    /**
+     * Counts a failed attempt at loading a page. The page stays marked as being loaded, so it
+     * isn't requested again until the caller retries it or gives up with
+     * {@link #markFailed(int)}.
+     *
+     * @return the number of failed attempts so far.
+     */
+    public int onLoadFailed(int pageIndex) {
+        Integer attempts = failedAttempts.get(pageIndex);
+        int failed = attempts == null ? 1 : attempts + 1;
+        failedAttempts.put(pageIndex, failed);
+        return failed;
+    }
+
+    /**
+     * Gives up on loading a page. It isn't requested again until {@link #clearFailures()}.
+     */
+    public void markFailed(int pageIndex) {
+        loadingPages.remove(pageIndex);
+        failedAttempts.remove(pageIndex);
+        failedPages.add(pageIndex);
+    }
+
+    public boolean hasFailed(int pageIndex) {
+        return failedPages.contains(pageIndex);
+    }
+
+    /**
+     * Lets the pages given up on be requested again and resets the attempts of the others.
+     */
+    public void clearFailures() {
+        failedAttempts.clear();
+        failedPages.clear();
+    }
+
+    /**
+     * Stops tracking a page as being loaded without storing anything, so it can be requested
+     * again.
+     */
+    public void cancelLoading(int pageIndex) {
+        loadingPages.remove(pageIndex);
+    }
+
+    public int getLoadedPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Drops every page and forgets about pages being loaded or that failed to.
+     */
+    public void clear() {
+        pages.clear();
+        loadingPages.clear();
+        clearFailures();
+    }
+}
@@ -0,0 +1,124 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of worker threads that runs waiting tasks lowest priority value first, then in
+ * the order they were submitted. Waiting tasks can be reprioritized or dropped all at once, which
+ * is what lets pagers put the work for the current page ahead of everything else as the user
+ * pages.
+ *
+ * Tasks are submitted, removed and reprioritized from one thread (the main thread); they run on
+ * the workers. Idle workers time out, so an unused executor holds no threads.
+ */
+public class PriorityExecutor {
+    private static final String TAG = PriorityExecutor.class.getSimpleName();
+
+    /**
+     * Returned by a {@link Prioritizer} to drop a waiting task.
+     */
+    public static final int DROP = -1;
+
+    public static abstract class Task implements Runnable, Comparable<Task> {
+        private int priority;
+        private long sequence;
+
+        public int getPriority() {
+            return priority;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (priority != other.priority) {
+                return priority < other.priority ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+
+        /**
+         * Called on the submitting thread when a {@link Prioritizer} drops this task. It never
+         * runs afterwards.
+         */
+        protected void onDropped() {
+        }
+    }
+
+    public interface Prioritizer {
+        /**
+         * @return the new priority of a waiting task, lower runs first, or {@link #DROP}.
+         */
+        int getPriority(Task task);
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final ArrayList<Runnable> reprioritizeScratch = new ArrayList<>();
+    private long nextSequence = 0;
+
+    /**
+     * @param threads The most tasks that run at once.
+     */
+    public PriorityExecutor(int threads) {
+        //Runnables are queued as they are (not wrapped) by execute(), so they sort by priority
+        executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @param priority Must not be negative; lower runs first.
+     */
+    public void execute(Task task, int priority) {
+        if (priority < 0) {
+            throw new IllegalArgumentException("priority must not be negative");
+        }
+
+        task.priority = priority;
+        task.sequence = nextSequence++;
+        executor.execute(task);
+    }
+
+    /**
+     * @return True if the task was waiting and won't run now.
+     */
+    public boolean remove(Task task) {
+        return executor.remove(task);
+    }
+
+    /**
+     * Gives every waiting task a new priority, dropping those the prioritizer says to. Tasks
+     * keep their submission order among equal priorities.
+     */
+    public void reprioritize(Prioritizer prioritizer) {
+        BlockingQueue<Runnable> queue = executor.getQueue();
+        queue.drainTo(reprioritizeScratch);
+
+        for (int i = 0; i < reprioritizeScratch.size(); i++) {
+            Task task = (Task) reprioritizeScratch.get(i);
+            int priority = prioritizer.getPriority(task);
+            if (priority < 0) {
+                task.onDropped();
+                continue;
+            }
+
+            task.priority = priority;
+            queue.add(task);
+        }
+
+        //A worker may have timed out while the queue was drained
+        if (!reprioritizeScratch.isEmpty()) {
+            executor.prestartAllCoreThreads();
+        }
+        reprioritizeScratch.clear();
+    }
+
+    /**
+     * @return the number of tasks waiting to run.
+     */
+    public int getWaitingCount() {
+        return executor.getQueue().size();
+    }
+}
@@ -10,7 +10,11 @@ import android.view.animation.Transformation;
  * be applied elsewhere since it is generic.
  *
  * @author jacobamuchow@gmail.com (Jacob Muchow)
+ *
+ * @deprecated Every frame of this runs on the UI thread. Use
+ * {@link LayerAnimations#translateTo}, which animates the same translation on a hardware layer.
  */
+@Deprecated
 public class RealTranslateAnimation extends Animation {
     private static final String TAG = RealTranslateAnimation.class.getSimpleName();
 
@@ -4,7 +4,12 @@ import android.view.animation.Animation;
 
 /**
  * @author jacobamuchow@gmail.com (Jacob Muchow)
+ *
+ * @deprecated DynamicPagerAdapter animates with ViewPropertyAnimator now, see
+ * {@link LayerAnimations}. Extend
+ * {@link android.support.v4.view.ViewPropertyAnimatorListenerAdapter} instead.
  */
+@Deprecated
 public class SimpleAnimationListener implements Animation.AnimationListener {
     @Override
     public void onAnimationStart(Animation animation) {
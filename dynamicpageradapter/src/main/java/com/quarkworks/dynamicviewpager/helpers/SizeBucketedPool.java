@@ -0,0 +1,184 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+import android.support.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * Keeps released objects by size so they can be reused for anything that fits, up to a total
+ * size. Objects go in buckets by the power of two at or below their size, so finding one that
+ * fits only looks at a couple of buckets. The least recently released are evicted first.
+ *
+ * Unlike the other helpers, this is thread safe, since pooled objects are typically taken on
+ * background threads.
+ *
+ * @param <T> The type of object pooled.
+ */
+public class SizeBucketedPool<T> {
+    private static final String TAG = SizeBucketedPool.class.getSimpleName();
+
+    private static final int BUCKET_COUNT = 32;
+
+    /**
+     * Don't hand out anything more than this many times the size asked for, it would waste more
+     * memory than allocating would.
+     */
+    private static final int MAX_SIZE_MULTIPLE = 4;
+
+    private static class Entry<T> {
+        final T item;
+        final int size;
+        final long sequence;
+
+        Entry(T item, int size, long sequence) {
+            this.item = item;
+            this.size = size;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Each in release order, so the head is the least recently released. Created as they are
+     * first needed.
+     */
+    private final ArrayList<ArrayDeque<Entry<T>>> buckets =
+            new ArrayList<>(Collections.<ArrayDeque<Entry<T>>>nCopies(BUCKET_COUNT, null));
+
+    private int maxSize;
+    private int size = 0;
+    private long nextSequence = 0;
+
+    /**
+     * @param maxSize The total size to keep, in whatever unit sizes are given in.
+     */
+    public SizeBucketedPool(int maxSize) {
+        setMaxSize(maxSize);
+    }
+
+    public synchronized void setMaxSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+
+        this.maxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    public synchronized int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the total size of the pooled objects.
+     */
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Pools an object, evicting the least recently released ones if the pool goes over its
+     * maximum size. An object bigger than the whole pool is evicted right away.
+     */
+    public synchronized void put(T item, int itemSize) {
+        if (itemSize <= 0 || itemSize > maxSize) {
+            onEvicted(item);
+            return;
+        }
+
+        int bucket = bucketOf(itemSize);
+        ArrayDeque<Entry<T>> entries = buckets.get(bucket);
+        if (entries == null) {
+            entries = new ArrayDeque<>();
+            buckets.set(bucket, entries);
+        }
+
+        entries.addLast(new Entry<>(item, itemSize, nextSequence++));
+        size += itemSize;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * @return a pooled object of at least the size given, the most recently released first, or
+     * null if none fits.
+     */
+    @Nullable
+    public synchronized T get(int minSize) {
+        if (minSize <= 0) {
+            return null;
+        }
+
+        //The bucket below the size asked for may still have objects big enough
+        int first = bucketOf(minSize);
+        int last = Math.min(BUCKET_COUNT - 1, bucketOf(minSize * (long) MAX_SIZE_MULTIPLE));
+
+        for (int bucket = first; bucket <= last; bucket++) {
+            ArrayDeque<Entry<T>> entries = buckets.get(bucket);
+            if (entries == null || entries.isEmpty()) {
+                continue;
+            }
+
+            if (bucket > first && entries.peekLast().size <= (long) minSize * MAX_SIZE_MULTIPLE) {
+                return take(entries.pollLast());
+            }
+
+            //Entries in the first bucket and the last one may be too small or too big
+            for (Entry<T> entry : entries) {
+                if (entry.size >= minSize && entry.size <= (long) minSize * MAX_SIZE_MULTIPLE) {
+                    entries.remove(entry);
+                    return take(entry);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private T take(Entry<T> entry) {
+        size -= entry.size;
+        return entry.item;
+    }
+
+    /**
+     * Evicts the least recently released objects until the pool is at most the size given.
+     */
+    public synchronized void trimToSize(int targetSize) {
+        while (size > targetSize) {
+            ArrayDeque<Entry<T>> eldest = null;
+            for (ArrayDeque<Entry<T>> entries : buckets) {
+                if (entries != null && !entries.isEmpty()
+                        && (eldest == null || entries.peekFirst().sequence < eldest.peekFirst().sequence)) {
+                    eldest = entries;
+                }
+            }
+
+            if (eldest == null) {
+                size = 0;
+                return;
+            }
+
+            Entry<T> entry = eldest.pollFirst();
+            size -= entry.size;
+            onEvicted(entry.item);
+        }
+    }
+
+    public void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * Called with objects that leave the pool without being reused. Called while the pool is
+     * locked, so this must not call back into it.
+     */
+    protected void onEvicted(T item) {
+    }
+
+    /**
+     * @return the bucket of the size given: the index of its highest set bit.
+     */
+    static int bucketOf(long size) {
+        return 63 - Long.numberOfLeadingZeros(size);
+    }
+}
@@ -0,0 +1,181 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+/**
+ * A one dimensional physics simulation for settling a released View. It starts from the position
+ * and velocity the View had when it was let go, so there is no jump in speed when the animation
+ * takes over from the finger.
+ *
+ * There are two modes:
+ * <ul>
+ *     <li>Spring: a damped spring pulls the position towards the target and the simulation ends
+ *     once it is at rest there. Used to snap a View back into place.</li>
+ *     <li>Fling: the position keeps its velocity and speeds up towards the target, and the
+ *     simulation ends when it gets there. Used to throw a View off the screen.</li>
+ * </ul>
+ *
+ * Instances hold no references and can be restarted any number of times, so keep one per View
+ * and reuse it across gestures.
+ */
+public class SpringFlingSimulation {
+    private static final String TAG = SpringFlingSimulation.class.getSimpleName();
+
+    public static final float DEFAULT_STIFFNESS = 400.0f;
+    public static final float DEFAULT_DAMPING_RATIO = 0.8f;
+    public static final float DEFAULT_FLING_ACCELERATION = 8000.0f;
+    public static final float DEFAULT_MIN_FLING_VELOCITY = 1000.0f;
+
+    /**
+     * Longer steps are split up to keep the spring integration stable.
+     */
+    private static final float MAX_SUBSTEP_SECONDS = 0.004f;
+
+    private static final float REST_DISTANCE = 0.5f;
+    private static final float REST_VELOCITY = 20.0f;
+
+    private static final int MODE_IDLE = 0;
+    private static final int MODE_SPRING = 1;
+    private static final int MODE_FLING = 2;
+
+    private float stiffness = DEFAULT_STIFFNESS;
+    private float dampingRatio = DEFAULT_DAMPING_RATIO;
+    private float flingAcceleration = DEFAULT_FLING_ACCELERATION;
+    private float minFlingVelocity = DEFAULT_MIN_FLING_VELOCITY;
+
+    private int mode = MODE_IDLE;
+    private float position = 0;
+    private float velocity = 0;
+    private float target = 0;
+
+    /**
+     * @param stiffness In 1/s^2. Higher values settle faster.
+     * @param dampingRatio 1 settles without overshooting, lower values bounce.
+     */
+    public void setSpring(float stiffness, float dampingRatio) {
+        if (stiffness <= 0 || dampingRatio <= 0) {
+            throw new IllegalArgumentException("stiffness and dampingRatio must be positive");
+        }
+
+        this.stiffness = stiffness;
+        this.dampingRatio = dampingRatio;
+    }
+
+    /**
+     * @param acceleration How fast a fling speeds up towards its target, in px/s^2.
+     * @param minVelocity The speed a fling starts with if it is released slower than that or
+     *                    in the wrong direction, in px/s.
+     */
+    public void setFling(float acceleration, float minVelocity) {
+        if (acceleration < 0 || minVelocity <= 0) {
+            throw new IllegalArgumentException("acceleration must not be negative and minVelocity must be positive");
+        }
+
+        this.flingAcceleration = acceleration;
+        this.minFlingVelocity = minVelocity;
+    }
+
+    /**
+     * @param velocity In px/s.
+     */
+    public void startSpring(float position, float velocity, float target) {
+        this.mode = MODE_SPRING;
+        this.position = position;
+        this.velocity = velocity;
+        this.target = target;
+    }
+
+    /**
+     * @param velocity In px/s.
+     */
+    public void startFling(float position, float velocity, float target) {
+        this.mode = MODE_FLING;
+        this.position = position;
+        this.target = target;
+
+        float direction = Math.signum(target - position);
+        this.velocity = velocity * direction < minFlingVelocity ? minFlingVelocity * direction : velocity;
+
+        if (direction == 0) {
+            mode = MODE_IDLE;
+        }
+    }
+
+    /**
+     * Advances the simulation.
+     *
+     * @return True if it is still running afterwards.
+     */
+    public boolean step(float deltaSeconds) {
+        while (mode != MODE_IDLE && deltaSeconds > 0) {
+            float substep = Math.min(deltaSeconds, MAX_SUBSTEP_SECONDS);
+            deltaSeconds -= substep;
+
+            if (mode == MODE_SPRING) {
+                stepSpring(substep);
+            } else {
+                stepFling(substep);
+            }
+        }
+        return mode != MODE_IDLE;
+    }
+
+    /**
+     * Semi-implicit Euler, which is stable for the stiffnesses and step sizes used here.
+     */
+    private void stepSpring(float seconds) {
+        float displacement = position - target;
+        float damping = 2.0f * dampingRatio * (float) Math.sqrt(stiffness);
+
+        velocity += (-stiffness * displacement - damping * velocity) * seconds;
+        position += velocity * seconds;
+
+        if (Math.abs(position - target) < REST_DISTANCE && Math.abs(velocity) < REST_VELOCITY) {
+            finish();
+        }
+    }
+
+    private void stepFling(float seconds) {
+        float direction = Math.signum(target - position);
+
+        velocity += flingAcceleration * direction * seconds;
+        position += velocity * seconds;
+
+        if ((target - position) * direction <= 0) {
+            finish();
+        }
+    }
+
+    /**
+     * Jumps to the target and stops.
+     */
+    public void finish() {
+        mode = MODE_IDLE;
+        position = target;
+        velocity = 0;
+    }
+
+    /**
+     * Stops where it is.
+     */
+    public void cancel() {
+        mode = MODE_IDLE;
+    }
+
+    public boolean isRunning() {
+        return mode != MODE_IDLE;
+    }
+
+    public float getPosition() {
+        return position;
+    }
+
+    /**
+     * @return the current velocity in px/s.
+     */
+    public float getVelocity() {
+        return velocity;
+    }
+
+    public float getTarget() {
+        return target;
+    }
+}
@@ -0,0 +1,135 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+/**
+ * Decides whether a touch gesture is a vertical swipe (to remove a page) or a horizontal one (to
+ * page), once per gesture. Nothing is decided until the finger has moved further than the touch
+ * slop, then the direction is locked until the next down event, so later events only compare an
+ * int.
+ *
+ * The angle test compares squared slopes: a movement of (dx, dy) is vertical if
+ * dx^2 <= tan(maxAngle)^2 * dy^2, where the squared tangent is worked out once when the angle is
+ * set. No trigonometry or allocation happens per event.
+ */
+public class SwipeGestureClassifier {
+    private static final String TAG = SwipeGestureClassifier.class.getSimpleName();
+
+    public static final int DIRECTION_UNDECIDED = 0;
+    public static final int DIRECTION_VERTICAL = 1;
+    public static final int DIRECTION_HORIZONTAL = 2;
+
+    /**
+     * How far from straight up or down a swipe may go, in degrees.
+     */
+    public static final float DEFAULT_MAX_ANGLE = 30.0f;
+    public static final float DEFAULT_MIN_FLING_VELOCITY = 500.0f;
+
+    private float maxAngle;
+    private float maxSlopeSquared;
+    private float touchSlopSquared = 0;
+    private float minFlingVelocitySquared;
+
+    private float downX = 0;
+    private float downY = 0;
+    private int direction = DIRECTION_UNDECIDED;
+
+    public SwipeGestureClassifier() {
+        setMaxAngle(DEFAULT_MAX_ANGLE);
+        setMinFlingVelocity(DEFAULT_MIN_FLING_VELOCITY);
+    }
+
+    /**
+     * @param degrees How far from straight up or down a swipe may go, from 0 up to (not
+     *                including) 90.
+     */
+    public void setMaxAngle(float degrees) {
+        if (degrees < 0 || degrees >= 90) {
+            throw new IllegalArgumentException("degrees must be at least 0 and less than 90");
+        }
+
+        double slope = Math.tan(Math.toRadians(degrees));
+        this.maxAngle = degrees;
+        this.maxSlopeSquared = (float) (slope * slope);
+    }
+
+    public float getMaxAngle() {
+        return maxAngle;
+    }
+
+    /**
+     * @param touchSlop How far the finger has to move, in px, before the gesture is classified.
+     *                  Usually {@link android.view.ViewConfiguration#getScaledTouchSlop()}.
+     */
+    public void setTouchSlop(float touchSlop) {
+        if (touchSlop < 0) {
+            throw new IllegalArgumentException("touchSlop must not be negative");
+        }
+
+        this.touchSlopSquared = touchSlop * touchSlop;
+    }
+
+    /**
+     * @param minFlingVelocity The vertical speed, in px/s, a fling needs to count as a swipe.
+     */
+    public void setMinFlingVelocity(float minFlingVelocity) {
+        if (minFlingVelocity < 0) {
+            throw new IllegalArgumentException("minFlingVelocity must not be negative");
+        }
+
+        this.minFlingVelocitySquared = minFlingVelocity * minFlingVelocity;
+    }
+
+    /**
+     * Starts a new gesture.
+     */
+    public void down(float x, float y) {
+        downX = x;
+        downY = y;
+        direction = DIRECTION_UNDECIDED;
+    }
+
+    /**
+     * Classifies the gesture the first time the finger leaves the touch slop and returns the
+     * locked direction after that.
+     *
+     * @return one of the DIRECTION_ constants.
+     */
+    public int move(float x, float y) {
+        if (direction != DIRECTION_UNDECIDED) {
+            return direction;
+        }
+
+        float dx = x - downX;
+        float dy = y - downY;
+
+        if (dx * dx + dy * dy <= touchSlopSquared || (dx == 0 && dy == 0)) {
+            return DIRECTION_UNDECIDED;
+        }
+
+        direction = isVertical(dx, dy) ? DIRECTION_VERTICAL : DIRECTION_HORIZONTAL;
+        return direction;
+    }
+
+    /**
+     * @return True if a fling with the velocity given, in px/s, is fast enough and close enough
+     * to vertical to count as a swipe.
+     */
+    public boolean isVerticalFling(float velocityX, float velocityY) {
+        return velocityY * velocityY > minFlingVelocitySquared && isVertical(velocityX, velocityY);
+    }
+
+    private boolean isVertical(float dx, float dy) {
+        return dx * dx <= maxSlopeSquared * dy * dy;
+    }
+
+    public int getDirection() {
+        return direction;
+    }
+
+    public float getDownX() {
+        return downX;
+    }
+
+    public float getDownY() {
+        return downY;
+    }
+}
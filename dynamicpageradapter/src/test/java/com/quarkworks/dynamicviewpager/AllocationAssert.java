@@ -0,0 +1,48 @@
+package com.quarkworks.dynamicviewpager;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that hot paths don't allocate on the calling thread.
+ */
+public final class AllocationAssert {
+
+    private static final int WARM_UP_RUNS = 2;
+    private static final int MAX_ROUNDS = 5;
+
+    private AllocationAssert() {}
+
+    /**
+     * Runs the Runnable a couple of times first so buffers have grown and it is compiled, then
+     * fails unless a run allocates nothing. The JIT can allocate on the thread now and then, so
+     * it gets a few rounds and a single clean one is enough. Skipped where the JVM can't count
+     * allocations per thread.
+     */
+    public static void assertNoAllocation(Runnable runnable) {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            runnable.run();
+        }
+
+        //Measuring can allocate by itself, so subtract that overhead
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        long overhead = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < MAX_ROUNDS && allocated > 0; round++) {
+            before = threadMXBean.getThreadAllocatedBytes(threadId);
+            runnable.run();
+            allocated = Math.min(allocated, threadMXBean.getThreadAllocatedBytes(threadId) - before - overhead);
+        }
+
+        assertTrue("allocated " + allocated + " bytes", allocated <= 0);
+    }
+}
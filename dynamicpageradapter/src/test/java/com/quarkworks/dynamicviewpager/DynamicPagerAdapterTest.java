@@ -0,0 +1,591 @@
+package com.quarkworks.dynamicviewpager;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Parcelable;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.animation.Animation;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static com.quarkworks.dynamicviewpager.AllocationAssert.assertNoAllocation;
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class DynamicPagerAdapterTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    static class TestViewHolder extends DynamicPagerAdapter.ViewHolder {
+        int bindCount;
+
+        TestViewHolder(View view) {
+            super(view);
+        }
+    }
+
+    static class TestAdapter extends DynamicPagerAdapter<TestViewHolder> {
+        final ArrayList<Integer> values = new ArrayList<>();
+        final boolean stableIds;
+        int restoreCount;
+        int createCount;
+
+        TestAdapter(int itemCount, boolean stableIds) {
+            this.stableIds = stableIds;
+            for (int i = 0; i < itemCount; i++) {
+                values.add(i);
+            }
+        }
+
+        @Override
+        public TestViewHolder onCreateViewHolder(ViewGroup container, int position, int viewType) {
+            createCount++;
+            return new TestViewHolder(new FrameLayout(container.getContext()));
+        }
+
+        @Override
+        public void onBindViewHolder(TestViewHolder viewHolder, int position) {
+            viewHolder.bindCount++;
+        }
+
+        @Override
+        public boolean hasStableIds() {
+            return stableIds;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return stableIds ? values.get(position) : NO_ID;
+        }
+
+        @Override
+        public int getCount() {
+            return values.size();
+        }
+
+        @Override
+        protected void onSaveViewHolderState(TestViewHolder viewHolder, SparseArray<Parcelable> state) {
+            state.put(1, new Bundle());
+        }
+
+        @Override
+        protected void onRestoreViewHolderState(TestViewHolder viewHolder, SparseArray<Parcelable> state) {
+            restoreCount++;
+        }
+    }
+
+    static class TestListAdapter extends AsyncListPagerAdapter<Integer, TestViewHolder> {
+
+        TestListAdapter(Executor diffExecutor) {
+            super(new ItemCallback<Integer>() {
+                @Override
+                public boolean areItemsTheSame(Integer oldItem, Integer newItem) {
+                    return oldItem.equals(newItem);
+                }
+
+                @Override
+                public boolean areContentsTheSame(Integer oldItem, Integer newItem) {
+                    return true;
+                }
+            }, diffExecutor);
+        }
+
+        @Override
+        public TestViewHolder onCreateViewHolder(ViewGroup container, int position, int viewType) {
+            return new TestViewHolder(new FrameLayout(container.getContext()));
+        }
+
+        @Override
+        public void onBindViewHolder(TestViewHolder viewHolder, int position) {
+            viewHolder.bindCount++;
+        }
+    }
+
+    /**
+     * Skips the framework's child bookkeeping, so only the adapter's own work is measured.
+     */
+    static class DetachedContainer extends FrameLayout {
+        DetachedContainer(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void addView(View child) {
+        }
+
+        @Override
+        public void removeView(View view) {
+        }
+    }
+
+    private TestAdapter adapter;
+    private SwipeRemovalViewPager viewPager;
+
+    @Before
+    public void setUp() throws Exception {
+        setUpPager(new TestAdapter(5, false));
+    }
+
+    private void setUpPager(TestAdapter adapter) {
+        this.adapter = adapter;
+
+        viewPager = new SwipeRemovalViewPager(RuntimeEnvironment.application);
+        viewPager.setPrefetchEnabled(false);
+        viewPager.setOffscreenPageLimit(1);
+        viewPager.setAdapter(adapter);
+
+        layout();
+    }
+
+    private void layout() {
+        viewPager.measure(
+                View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        viewPager.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void insertWhileAnimating_isAppliedBeforeTheNextLayout() throws Exception {
+        TestViewHolder viewHolder = adapter.getViewHolderAt(0);
+
+        adapter.setViewAnimating(true);
+
+        adapter.values.add(0, -1);
+        adapter.notifyItemInserted(0);
+
+        //Throws if the ViewPager didn't see the new count
+        layout();
+
+        assertEquals(1, viewPager.getCurrentItem());
+        assertSame(viewHolder, adapter.getViewHolderAt(1));
+        assertEquals(1, viewHolder.getPosition());
+    }
+
+    @Test
+    public void changeWhileAnimating_isReboundOnceTheAnimationEnds() throws Exception {
+        TestViewHolder viewHolder = adapter.getViewHolderAt(0);
+        int bindCount = viewHolder.bindCount;
+
+        adapter.setViewAnimating(true);
+        adapter.notifyItemChanged(0);
+        layout();
+
+        assertEquals(bindCount, viewHolder.bindCount);
+
+        adapter.setViewAnimating(false);
+
+        assertEquals(bindCount + 1, viewHolder.bindCount);
+    }
+
+    @Test
+    public void releasedPrefetch_leavesSavedStateForAttach() throws Exception {
+        setUpPager(new TestAdapter(10, true));
+
+        //Page 0 is destroyed and its state saved
+        viewPager.setCurrentItem(5, false);
+
+        adapter.prefetch(viewPager, 0, Long.MAX_VALUE);
+        assertEquals(0, adapter.restoreCount);
+
+        adapter.clearPrefetchedOutside(5, 1);
+        viewPager.setCurrentItem(0, false);
+
+        assertEquals(1, adapter.restoreCount);
+    }
+
+    @Test
+    public void destroyedPage_isReboundFromThePool() throws Exception {
+        TestAdapter adapter = new TestAdapter(5, false);
+        FrameLayout container = new FrameLayout(RuntimeEnvironment.application);
+
+        Object page = adapter.instantiateItem(container, 0);
+        TestViewHolder viewHolder = adapter.getViewHolderAt(0);
+        adapter.destroyItem(container, 0, page);
+
+        assertNull(adapter.getViewHolderAt(0));
+        assertEquals(1, adapter.getRecycledViewPool().getRecycledViewCount());
+
+        adapter.instantiateItem(container, 3);
+
+        assertSame(viewHolder, adapter.getViewHolderAt(3));
+        assertEquals(1, adapter.createCount);
+        assertEquals(2, viewHolder.bindCount);
+        assertEquals(0, adapter.getRecycledViewPool().getRecycledViewCount());
+    }
+
+    @Test
+    public void fullPool_dropsTheExtraViewHolders() throws Exception {
+        TestAdapter adapter = new TestAdapter(5, false);
+        adapter.getRecycledViewPool().setMaxRecycledViews(DynamicPagerAdapter.DEFAULT_VIEW_TYPE, 1);
+        FrameLayout container = new FrameLayout(RuntimeEnvironment.application);
+
+        Object first = adapter.instantiateItem(container, 0);
+        Object second = adapter.instantiateItem(container, 1);
+        adapter.destroyItem(container, 0, first);
+        adapter.destroyItem(container, 1, second);
+
+        assertEquals(1, adapter.getRecycledViewPool().getRecycledViewCount());
+
+        adapter.instantiateItem(container, 2);
+        adapter.instantiateItem(container, 3);
+
+        assertEquals(3, adapter.createCount);
+    }
+
+    @Test
+    public void paging_doesNotAllocate() throws Exception {
+        final int count = 100;
+        final TestAdapter adapter = new TestAdapter(count, false);
+        final DetachedContainer container = new DetachedContainer(RuntimeEnvironment.application);
+        final Object[] pages = new Object[count];
+
+        //Pages forward through the whole data set, keeping the current page and one on each side
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                for (int position = 0; position < count; position++) {
+                    pages[position] = adapter.instantiateItem(container, position);
+
+                    View view = adapter.getViewHolderAt(position).view;
+                    assertEquals(position, adapter.getPositionForView(view));
+
+                    if (position >= 2) {
+                        adapter.destroyItem(container, position - 2, pages[position - 2]);
+                    }
+                }
+
+                adapter.destroyItem(container, count - 2, pages[count - 2]);
+                adapter.destroyItem(container, count - 1, pages[count - 1]);
+            }
+        });
+
+        assertEquals(3, adapter.createCount);
+    }
+
+    @Test
+    public void getPositionForView_followsThePageAround() throws Exception {
+        View view = adapter.getViewAt(1);
+        assertEquals(1, adapter.getPositionForView(view));
+        assertEquals(DynamicPagerAdapter.NO_POSITION, adapter.getPositionForView(null));
+
+        adapter.values.add(0, -1);
+        adapter.notifyItemInserted(0);
+        layout();
+
+        assertEquals(2, adapter.getPositionForView(view));
+
+        //Page 2 leaves the window and is destroyed. Without a pool its View isn't reused.
+        adapter.getRecycledViewPool().setMaxRecycledViews(DynamicPagerAdapter.DEFAULT_VIEW_TYPE, 0);
+        viewPager.setCurrentItem(5, false);
+
+        assertEquals(DynamicPagerAdapter.NO_POSITION, adapter.getPositionForView(view));
+        assertEquals(5, adapter.getPositionForView(adapter.getViewAt(5)));
+    }
+
+    @Test
+    public void dataSetChangeWithStableIds_keepsAndMovesPages() throws Exception {
+        setUpPager(new TestAdapter(5, true));
+        TestViewHolder first = adapter.getViewHolderAt(0);
+        TestViewHolder second = adapter.getViewHolderAt(1);
+        int firstBindCount = first.bindCount;
+        int createCount = adapter.createCount;
+
+        adapter.values.add(0, -1);
+        adapter.notifyDataSetChanged();
+        layout();
+
+        assertEquals(1, viewPager.getCurrentItem());
+        assertSame(first, adapter.getViewHolderAt(1));
+        assertSame(second, adapter.getViewHolderAt(2));
+        assertEquals(1, first.getPosition());
+        assertEquals(0, first.getItemId());
+        assertEquals(firstBindCount + 1, first.bindCount);
+
+        //Only the inserted page is new
+        assertEquals(createCount + 1, adapter.createCount);
+
+        int secondBindCount = second.bindCount;
+        adapter.values.remove(Integer.valueOf(0));
+        adapter.notifyDataSetChanged();
+        layout();
+
+        //The current page's item is gone, so the next one takes its place
+        assertEquals(1, viewPager.getCurrentItem());
+        assertSame(second, adapter.getViewHolderAt(1));
+        assertEquals(secondBindCount + 1, second.bindCount);
+        assertEquals(2, adapter.getViewHolderAt(2).getItemId());
+    }
+
+    @Test
+    public void diffOfAnOlderList_isDropped() throws Exception {
+        //Diffs only run when the test says so
+        final ArrayList<Runnable> diffs = new ArrayList<>();
+        TestListAdapter listAdapter = new TestListAdapter(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                diffs.add(command);
+            }
+        });
+
+        List<Integer> initial = Arrays.asList(0, 1, 2);
+        List<Integer> older = Arrays.asList(2, 1, 0);
+        List<Integer> newer = Arrays.asList(0, 1, 2, 3);
+
+        //Replacing an empty list doesn't need a diff
+        listAdapter.submitList(initial);
+        listAdapter.submitList(older);
+        listAdapter.submitList(newer);
+        assertEquals(2, diffs.size());
+
+        diffs.get(0).run();
+        Robolectric.flushForegroundThreadScheduler();
+
+        assertSame(initial, listAdapter.getItems());
+
+        diffs.get(1).run();
+        Robolectric.flushForegroundThreadScheduler();
+
+        assertSame(newer, listAdapter.getItems());
+        assertEquals(4, listAdapter.getCount());
+    }
+
+    @Test
+    public void granularRemoveAfterCollapse_resetsTheTranslation() throws Exception {
+        adapter.setCallbacks(new DynamicPagerAdapter.Callbacks() {
+            @Override
+            public void onDiscardFinished(int position, View view) {
+                adapter.values.remove(position);
+                adapter.notifyItemRemoved(position);
+            }
+        });
+
+        View nextView = adapter.getViewAt(1);
+        assertTrue(adapter.collapseViewsIn(adapter.getViewAt(0)));
+
+        //Where the collapse ends
+        nextView.setTranslationX(-WIDTH);
+
+        adapter.fastForwardDiscards();
+        layout();
+
+        assertFalse(adapter.isViewAnimating());
+        assertSame(nextView, adapter.getViewAt(0));
+        assertEquals(0, nextView.getTranslationX(), 0);
+    }
+
+    @Test
+    public void dataSetChangeDuringDiscard_stillFinishesTheDiscard() throws Exception {
+        setUpPager(new TestAdapter(5, true));
+        final ArrayList<View> discarded = new ArrayList<>();
+        adapter.setCallbacks(new DynamicPagerAdapter.Callbacks() {
+            @Override
+            public void onDiscardFinished(int position, View view) {
+                discarded.add(view);
+            }
+        });
+
+        View view = adapter.getViewAt(0);
+        assertTrue(adapter.discardViewAt(0));
+
+        //Moves the page being discarded, which resets its animation
+        adapter.values.add(0, -1);
+        adapter.notifyDataSetChanged();
+        layout();
+        Robolectric.flushForegroundThreadScheduler();
+
+        assertEquals(1, discarded.size());
+        assertSame(view, discarded.get(0));
+        assertFalse(adapter.isViewAnimating());
+
+        //The next discard isn't stuck behind it
+        assertTrue(adapter.discardViewAt(viewPager.getCurrentItem()));
+        assertTrue(adapter.isViewAnimating());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void legacyDiscardAnimationOverride_isStillCalled() throws Exception {
+        final ArrayList<View> animated = new ArrayList<>();
+        final ArrayList<Integer> discarded = new ArrayList<>();
+
+        setUpPager(new TestAdapter(5, false) {
+            @Override
+            protected boolean startDiscardAnimation(View view, Animation.AnimationListener animationListener) {
+                animated.add(view);
+                animationListener.onAnimationEnd(null);
+                return true;
+            }
+        });
+        adapter.setCallbacks(new DynamicPagerAdapter.Callbacks() {
+            @Override
+            public void onDiscardFinished(int position, View view) {
+                discarded.add(position);
+            }
+        });
+
+        View view = adapter.getViewAt(0);
+        assertTrue(adapter.discardViewAt(0));
+        adapter.fastForwardDiscards();
+
+        assertEquals(1, animated.size());
+        assertSame(view, animated.get(0));
+        assertEquals(Arrays.asList(0), discarded);
+    }
+
+    @Test
+    public void discardPositions_deliversOneSortedBatch() throws Exception {
+        final ArrayList<int[]> batches = new ArrayList<>();
+        adapter.setCallbacks(new DynamicPagerAdapter.BatchCallbacks() {
+            @Override
+            public void onDiscardFinished(int[] positions) {
+                batches.add(positions);
+                for (int i = positions.length - 1; i >= 0; i--) {
+                    adapter.values.remove(positions[i]);
+                }
+                adapter.notifyDataSetChanged();
+            }
+
+            @Override
+            public void onDiscardFinished(int position, View view) {
+                fail();
+            }
+        });
+
+        //Out of range and duplicate positions are ignored
+        assertTrue(adapter.discardPositions(new int[] {3, 0, 9, 0, -1}));
+        assertTrue(adapter.isViewAnimating());
+
+        adapter.fastForwardDiscards();
+        layout();
+
+        assertEquals(1, batches.size());
+        assertArrayEquals(new int[] {0, 3}, batches.get(0));
+        assertEquals(Arrays.asList(1, 2, 4), adapter.values);
+        assertFalse(adapter.isViewAnimating());
+    }
+
+    @Test
+    public void discardPositions_withPlainCallbacks_removesFromTheEnd() throws Exception {
+        final ArrayList<Integer> discarded = new ArrayList<>();
+        adapter.setCallbacks(new DynamicPagerAdapter.Callbacks() {
+            @Override
+            public void onDiscardFinished(int position, View view) {
+                discarded.add(position);
+            }
+        });
+
+        assertFalse(adapter.discardPositions(new int[] {7, -2}));
+        assertTrue(adapter.discardPositions(new int[] {1, 4, 2}));
+        adapter.fastForwardDiscards();
+
+        assertEquals(Arrays.asList(4, 2, 1), discarded);
+    }
+
+    @Test
+    public void insertWhileDiscardIsQueued_discardsTheRequestedItem() throws Exception {
+        final ArrayList<Integer> removed = new ArrayList<>();
+        adapter.setCallbacks(new DynamicPagerAdapter.Callbacks() {
+            @Override
+            public void onDiscardFinished(int position, View view) {
+                removed.add(adapter.values.remove(position));
+                adapter.notifyItemRemoved(position);
+            }
+        });
+
+        assertTrue(adapter.discardViewAt(0));
+        assertTrue(adapter.discardViewAt(1));
+
+        adapter.values.add(0, -1);
+        adapter.notifyItemInserted(0);
+        layout();
+
+        adapter.fastForwardDiscards();
+        layout();
+
+        assertEquals(Arrays.asList(0, 1), removed);
+        assertEquals(Arrays.asList(-1, 2, 3, 4), adapter.values);
+    }
+
+    @Test
+    public void onTrimMemory_keepsThePoolWhenTheUiIsOnlyHidden() throws Exception {
+        TestAdapter adapter = new TestAdapter(5, false);
+        FrameLayout container = new FrameLayout(RuntimeEnvironment.application);
+
+        Object[] pages = new Object[4];
+        for (int position = 0; position < 4; position++) {
+            pages[position] = adapter.instantiateItem(container, position);
+        }
+        for (int position = 0; position < 4; position++) {
+            adapter.destroyItem(container, position, pages[position]);
+        }
+        assertEquals(4, adapter.getRecycledViewPool().getRecycledViewCount());
+
+        assertEquals(0, adapter.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN));
+        assertEquals(4, adapter.getRecycledViewPool().getRecycledViewCount());
+
+        assertEquals(2, adapter.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE));
+        assertEquals(2, adapter.getRecycledViewPool().getRecycledViewCount());
+
+        assertEquals(2, adapter.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND));
+        assertEquals(0, adapter.getRecycledViewPool().getRecycledViewCount());
+    }
+
+    @Test
+    public void dataSetChangesDuringDiscard_keepThePagesAndRebindOnce() throws Exception {
+        TestViewHolder discarding = adapter.getViewHolderAt(0);
+        TestViewHolder next = adapter.getViewHolderAt(1);
+        int nextBindCount = next.bindCount;
+
+        assertTrue(adapter.discardViewAt(0));
+
+        adapter.notifyDataSetChanged();
+        adapter.values.add(5);
+        adapter.notifyDataSetChanged();
+        layout();
+
+        //Nothing was torn down or rebound under the animation
+        assertTrue(adapter.isViewAnimating());
+        assertSame(discarding, adapter.getViewHolderAt(0));
+        assertSame(next, adapter.getViewHolderAt(1));
+        assertEquals(nextBindCount, next.bindCount);
+
+        adapter.fastForwardDiscards();
+
+        //Both changes cost a single rebind
+        assertFalse(adapter.isViewAnimating());
+        assertSame(next, adapter.getViewHolderAt(1));
+        assertEquals(nextBindCount + 1, next.bindCount);
+    }
+
+    @Test
+    public void dataSetChangeDuringDiscard_withStableIds_keepsAnimatingInPlace() throws Exception {
+        setUpPager(new TestAdapter(5, true));
+        View view = adapter.getViewAt(0);
+
+        assertTrue(adapter.discardViewAt(0));
+
+        adapter.values.add(5);
+        adapter.notifyDataSetChanged();
+        layout();
+
+        assertTrue(adapter.isViewAnimating());
+        assertSame(view, adapter.getViewAt(0));
+    }
+}
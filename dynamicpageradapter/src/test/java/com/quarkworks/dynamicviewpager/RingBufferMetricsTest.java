@@ -0,0 +1,104 @@
+package com.quarkworks.dynamicviewpager;
+
+import org.junit.Test;
+
+import static com.quarkworks.dynamicviewpager.AllocationAssert.assertNoAllocation;
+import static com.quarkworks.dynamicviewpager.PagerMetricsListener.*;
+import static org.junit.Assert.*;
+
+public class RingBufferMetricsTest {
+
+    @Test
+    public void percentiles_coverRetainedSamplesOnly() throws Exception {
+        RingBufferMetrics metrics = new RingBufferMetrics(4);
+
+        //The first two samples get overwritten
+        long[] samples = {1000, 1000, 10, 20, 30, 40};
+        for (long sample : samples) {
+            metrics.onTimedEvent(EVENT_BIND_VIEW_HOLDER, 0, sample);
+        }
+
+        assertEquals(6, metrics.getEventCount(EVENT_BIND_VIEW_HOLDER));
+        assertEquals(10, metrics.getPercentileNs(EVENT_BIND_VIEW_HOLDER, 0));
+        assertEquals(20, metrics.getPercentileNs(EVENT_BIND_VIEW_HOLDER, 50));
+        assertEquals(40, metrics.getPercentileNs(EVENT_BIND_VIEW_HOLDER, 100));
+        assertEquals(0, metrics.getPercentileNs(EVENT_DESTROY_ITEM, 50));
+    }
+
+    @Test
+    public void lookups_areCountedPerViewType() throws Exception {
+        RingBufferMetrics metrics = new RingBufferMetrics();
+
+        metrics.onViewHolderLookup(LOOKUP_POOL_HIT, 2);
+        metrics.onViewHolderLookup(LOOKUP_POOL_HIT, 2);
+        metrics.onViewHolderLookup(LOOKUP_MISS, 2);
+        metrics.onViewHolderLookup(LOOKUP_MISS, 5);
+
+        assertEquals(2, metrics.getLookupCount(LOOKUP_POOL_HIT, 2));
+        assertEquals(1, metrics.getLookupCount(LOOKUP_MISS, 2));
+        assertEquals(1, metrics.getLookupCount(LOOKUP_MISS, 5));
+        assertEquals(0, metrics.getLookupCount(LOOKUP_MISS, 7));
+    }
+
+    @Test
+    public void lookups_overflowIntoOtherViewTypes() throws Exception {
+        RingBufferMetrics metrics = new RingBufferMetrics();
+
+        for (int viewType = 0; viewType <= RingBufferMetrics.MAX_TRACKED_VIEW_TYPES; viewType++) {
+            metrics.onViewHolderLookup(LOOKUP_MISS, viewType);
+        }
+
+        assertEquals(1, metrics.getLookupCount(LOOKUP_MISS, RingBufferMetrics.OTHER_VIEW_TYPES));
+    }
+
+    @Test
+    public void dump_includesEventsAndLookups() throws Exception {
+        RingBufferMetrics metrics = new RingBufferMetrics();
+
+        metrics.onTimedEvent(EVENT_CREATE_VIEW_HOLDER, 1, 5000);
+        metrics.onViewHolderLookup(LOOKUP_CACHE_HIT, 1);
+
+        String dump = metrics.dump();
+
+        assertTrue(dump, dump.contains("\"createViewHolder\":{\"count\":1,\"samples\":1,\"minNs\":5000"));
+        assertTrue(dump, dump.contains("{\"viewType\":1,\"cacheHit\":1,"));
+        assertFalse(dump, dump.contains(String.valueOf(RingBufferMetrics.OTHER_VIEW_TYPES)));
+    }
+
+    @Test
+    public void trims_areTotaled() throws Exception {
+        RingBufferMetrics metrics = new RingBufferMetrics();
+
+        metrics.onTrimMemory(5, 2);
+        metrics.onTrimMemory(15, 3);
+
+        assertEquals(2, metrics.getTrimCount());
+        assertEquals(5, metrics.getReleasedViewHolderCount());
+        assertEquals(15, metrics.getLastTrimLevel());
+
+        String dump = metrics.dump();
+        assertTrue(dump, dump.endsWith("\"trims\":{\"count\":2,\"releasedViewHolders\":5,\"lastLevel\":15}}"));
+
+        metrics.reset();
+        assertEquals(0, metrics.getTrimCount());
+    }
+
+    @Test
+    public void recording_doesNotAllocate() throws Exception {
+        final RingBufferMetrics metrics = new RingBufferMetrics();
+
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 10000; i++) {
+                    record(metrics, i);
+                }
+            }
+        });
+    }
+
+    private static void record(RingBufferMetrics metrics, int i) {
+        metrics.onTimedEvent(i % EVENT_COUNT, i % 3, i);
+        metrics.onViewHolderLookup(i % LOOKUP_COUNT, i % 3);
+    }
+}
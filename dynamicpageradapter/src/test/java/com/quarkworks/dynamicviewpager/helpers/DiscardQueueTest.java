@@ -0,0 +1,156 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+import org.junit.Test;
+
+import static com.quarkworks.dynamicviewpager.AllocationAssert.assertNoAllocation;
+import static org.junit.Assert.*;
+
+public class DiscardQueueTest {
+
+    @Test
+    public void poll_returnsEntriesInOrder() throws Exception {
+        DiscardQueue<Object> queue = new DiscardQueue<>();
+
+        DiscardQueue.Entry<Object> first = queue.obtain();
+        first.setSingle(4);
+        queue.add(first);
+
+        DiscardQueue.Entry<Object> second = queue.obtain();
+        second.setBatch(new int[] {1, 2, 9}, 3);
+        queue.add(second);
+
+        assertEquals(2, queue.size());
+        assertSame(first, queue.poll());
+        assertSame(second, queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+
+        assertTrue(second.isBatch());
+        assertArrayEquals(new int[] {1, 2, 9}, second.toArray());
+        assertEquals(2, second.countBefore(5));
+        assertEquals(-3, second.indexOf(5));
+    }
+
+    @Test
+    public void removeDiscarded_shiftsAndDropsQueuedPositions() throws Exception {
+        DiscardQueue<Object> queue = new DiscardQueue<>();
+
+        DiscardQueue.Entry<Object> single = queue.obtain();
+        single.setSingle(3);
+        queue.add(single);
+
+        DiscardQueue.Entry<Object> batch = queue.obtain();
+        batch.setBatch(new int[] {0, 5, 8}, 3);
+        queue.add(batch);
+
+        DiscardQueue.Entry<Object> discarded = queue.obtain();
+        discarded.setBatch(new int[] {3, 6}, 2);
+        queue.removeDiscarded(discarded);
+
+        //3 was discarded already, so its entry is gone; 5 and 8 move down past the removed items
+        assertEquals(1, queue.size());
+        DiscardQueue.Entry<Object> remaining = queue.poll();
+        assertSame(batch, remaining);
+        assertArrayEquals(new int[] {0, 4, 6}, remaining.toArray());
+    }
+
+    @Test
+    public void offsets_followInsertsRemovesAndMoves() throws Exception {
+        DiscardQueue<Object> queue = new DiscardQueue<>();
+
+        DiscardQueue.Entry<Object> single = queue.obtain();
+        single.setSingle(2);
+        queue.add(single);
+
+        DiscardQueue.Entry<Object> batch = queue.obtain();
+        batch.setBatch(new int[] {1, 4, 6}, 3);
+        queue.add(batch);
+
+        queue.offsetForInsert(0, 2);
+        assertArrayEquals(new int[] {4}, single.toArray());
+        assertArrayEquals(new int[] {3, 6, 8}, batch.toArray());
+
+        //Removes 4 and 5, which drops the single entry
+        queue.offsetForRemove(4, 2);
+        assertEquals(1, queue.size());
+        assertArrayEquals(new int[] {3, 4, 6}, batch.toArray());
+
+        //Positions stay sorted when an item moves past others
+        queue.offsetForMove(3, 7);
+        assertArrayEquals(new int[] {3, 5, 7}, batch.toArray());
+    }
+
+    @Test
+    public void remap_findsPositionsByItemId() throws Exception {
+        DiscardQueue<Object> queue = new DiscardQueue<>();
+
+        DiscardQueue.Entry<Object> batch = queue.obtain();
+        batch.setBatch(new int[] {0, 1, 2}, 3);
+        batch.setItemId(0, 10);
+        batch.setItemId(1, 11);
+        batch.setItemId(2, 12);
+        queue.add(batch);
+
+        //Item 10 moved to the end, item 11 was removed
+        queue.remap(new DiscardQueue.PositionLookup() {
+            @Override
+            public int findPosition(long itemId, int oldPosition) {
+                return itemId == 10 ? 5 : itemId == 12 ? 1 : -1;
+            }
+        });
+
+        assertArrayEquals(new int[] {1, 5}, batch.toArray());
+        assertEquals(12, batch.getItemId(0));
+        assertEquals(10, batch.getItemId(1));
+    }
+
+    @Test
+    public void hotPaths_doNotAllocate() throws Exception {
+        final DiscardQueue<Object> queue = new DiscardQueue<>();
+        final int[] positions = new int[] {0, 0, 0, 0};
+        final Object view = new Object();
+
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 10000; i++) {
+                    churn(queue, positions, view, i);
+                }
+            }
+        });
+    }
+
+    /**
+     * The same sequence DynamicPagerAdapter runs while discards pile up: one discard is in flight,
+     * a single and a batch discard are queued behind it, an item is inserted and removed ahead of
+     * them, then it finishes and the next one starts.
+     */
+    private static void churn(DiscardQueue<Object> queue, int[] positions, Object view, int position) {
+        DiscardQueue.Entry<Object> inFlight = queue.obtain();
+        inFlight.setSingle(position);
+        inFlight.view = view;
+
+        DiscardQueue.Entry<Object> single = queue.obtain();
+        single.setSingle(position + 1);
+        queue.add(single);
+
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = position + 2 + i;
+        }
+        DiscardQueue.Entry<Object> batch = queue.obtain();
+        batch.setBatch(positions, positions.length);
+        queue.add(batch);
+
+        queue.offsetForInsert(position, 1);
+        queue.offsetForRemove(position, 1);
+
+        queue.removeDiscarded(inFlight);
+        queue.recycle(inFlight);
+
+        while (!queue.isEmpty()) {
+            DiscardQueue.Entry<Object> next = queue.poll();
+            queue.removeDiscarded(next);
+            queue.recycle(next);
+        }
+    }
+}
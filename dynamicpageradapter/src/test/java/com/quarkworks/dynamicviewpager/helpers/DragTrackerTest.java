@@ -0,0 +1,70 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DragTrackerTest {
+
+    @Test
+    public void steadyDrag_givesItsVelocity() throws Exception {
+        DragTracker tracker = new DragTracker();
+
+        //240 Hz samples moving 2000 px/s down and 500 px/s left
+        for (int i = 0; i <= 24; i++) {
+            tracker.addSample(1000 + i * 4, 300 - i * 2, 100 + i * 8);
+        }
+        tracker.computeVelocity(1000 + 24 * 4, 10000);
+
+        assertEquals(2000, tracker.getVelocityY(), 1);
+        assertEquals(-500, tracker.getVelocityX(), 1);
+        assertEquals(100 + 24 * 8, tracker.getY(), 0);
+    }
+
+    @Test
+    public void oldSamples_areIgnored() throws Exception {
+        DragTracker tracker = new DragTracker();
+
+        //Down quickly, then back up more slowly for the last 100 ms
+        for (int i = 0; i <= 10; i++) {
+            tracker.addSample(i * 10, 0, i * 50);
+        }
+        for (int i = 1; i <= 10; i++) {
+            tracker.addSample(100 + i * 10, 0, 500 - i * 10);
+        }
+        tracker.computeVelocity(200, 10000);
+
+        assertEquals(-1000, tracker.getVelocityY(), 1);
+    }
+
+    @Test
+    public void stoppedBeforeRelease_givesNoVelocity() throws Exception {
+        DragTracker tracker = new DragTracker();
+
+        for (int i = 0; i <= 10; i++) {
+            tracker.addSample(i * 8, 0, i * 20);
+        }
+        tracker.computeVelocity(80 + 100, 10000);
+
+        assertEquals(0, tracker.getVelocityY(), 0);
+    }
+
+    @Test
+    public void velocity_isClampedAndClearedWithSamples() throws Exception {
+        DragTracker tracker = new DragTracker();
+
+        tracker.addSample(0, 0, 0);
+        tracker.addSample(8, 0, -400);
+        tracker.computeVelocity(8, 8000);
+        assertEquals(-8000, tracker.getVelocityY(), 0);
+
+        tracker.clear();
+        assertEquals(0, tracker.getSampleCount());
+        assertEquals(0, tracker.getVelocityY(), 0);
+
+        //A single sample can't tell a velocity
+        tracker.addSample(20, 0, 0);
+        tracker.computeVelocity(20, 8000);
+        assertEquals(0, tracker.getVelocityY(), 0);
+    }
+}
@@ -0,0 +1,85 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static com.quarkworks.dynamicviewpager.AllocationAssert.assertNoAllocation;
+import static org.junit.Assert.*;
+
+public class IntSparseArrayTest {
+
+    @Test
+    public void putGetRemove_keepsKeysSorted() throws Exception {
+        IntSparseArray<String> array = new IntSparseArray<>(2);
+
+        array.put(500, "c");
+        array.put(3, "a");
+        array.put(200, "b");
+
+        assertEquals(3, array.size());
+        assertEquals(3, array.keyAt(0));
+        assertEquals(200, array.keyAt(1));
+        assertEquals(500, array.keyAt(2));
+        assertEquals("b", array.get(200));
+
+        assertEquals("b", array.put(200, "B"));
+        assertEquals("B", array.remove(200));
+        assertNull(array.get(200));
+        assertNull(array.remove(200));
+        assertEquals(2, array.size());
+    }
+
+    @Test
+    public void indexOfValue_usesIdentity() throws Exception {
+        IntSparseArray<String> array = new IntSparseArray<>();
+        String value = new String("value");
+
+        array.put(1000, value);
+
+        assertEquals(0, array.indexOfValue(value));
+        assertEquals(-1, array.indexOfValue(new String("value")));
+    }
+
+    @Test
+    public void mapView_writesThrough() throws Exception {
+        IntSparseArray<String> array = new IntSparseArray<>();
+        Map<Integer, String> map = array.asMap();
+
+        map.put(1000, "a");
+        array.put(2000, "b");
+
+        assertEquals("a", array.get(1000));
+        assertEquals("b", map.get(2000));
+        assertEquals(2, map.size());
+
+        map.remove(1000);
+        assertEquals(1, array.size());
+    }
+
+    @Test
+    public void hotPaths_doNotAllocate() throws Exception {
+        final IntSparseArray<Object> array = new IntSparseArray<>();
+        final Object value = new Object();
+
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 10000; i++) {
+                    churn(array, value, i);
+                }
+            }
+        });
+    }
+
+    /**
+     * The same sequence DynamicPagerAdapter runs while paging: instantiate a position, look up
+     * its neighbours, destroy the position that fell out of the window.
+     */
+    private static void churn(IntSparseArray<Object> array, Object value, int position) {
+        array.put(position, value);
+        array.get(position - 1);
+        array.get(position + 1);
+        array.remove(position - 5);
+    }
+}
@@ -0,0 +1,102 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PagedItemCacheTest {
+
+    @Test
+    public void get_findsItemsByPosition() throws Exception {
+        PagedItemCache<String> cache = new PagedItemCache<>(3, 4);
+
+        cache.putPage(2, Arrays.asList("g", "h"));
+
+        assertEquals(2, cache.pageOf(8));
+        assertEquals("g", cache.get(6));
+        assertEquals("h", cache.get(7));
+
+        //Short last page, and pages that aren't loaded
+        assertNull(cache.get(8));
+        assertNull(cache.get(0));
+    }
+
+    @Test
+    public void startLoading_requestsEachPageOnce() throws Exception {
+        PagedItemCache<String> cache = new PagedItemCache<>(3, 4);
+
+        assertTrue(cache.startLoading(1));
+        assertFalse(cache.startLoading(1));
+        assertTrue(cache.isLoading(1));
+
+        cache.putPage(1, Arrays.asList("d", "e", "f"));
+        assertFalse(cache.isLoading(1));
+        assertFalse(cache.startLoading(1));
+
+        //A failed load can be requested again
+        assertTrue(cache.startLoading(2));
+        cache.cancelLoading(2);
+        assertTrue(cache.startLoading(2));
+    }
+
+    @Test
+    public void failedLoads_areCountedUntilGivenUp() throws Exception {
+        PagedItemCache<String> cache = new PagedItemCache<>(3, 4);
+
+        assertTrue(cache.startLoading(1));
+        assertEquals(1, cache.onLoadFailed(1));
+        assertEquals(2, cache.onLoadFailed(1));
+
+        //Still loading while it is retried
+        assertFalse(cache.startLoading(1));
+
+        cache.markFailed(1);
+        assertFalse(cache.isLoading(1));
+        assertTrue(cache.hasFailed(1));
+        assertFalse(cache.startLoading(1));
+
+        //Attempts start over once failures are cleared
+        cache.clearFailures();
+        assertTrue(cache.startLoading(1));
+        assertEquals(1, cache.onLoadFailed(1));
+
+        //And once the page loads
+        cache.putPage(1, Arrays.asList("d", "e", "f"));
+        assertEquals(1, cache.onLoadFailed(1));
+    }
+
+    @Test
+    public void leastRecentlyUsedPages_areDropped() throws Exception {
+        PagedItemCache<String> cache = new PagedItemCache<>(1, 2);
+
+        cache.putPage(0, Arrays.asList("a"));
+        cache.putPage(1, Arrays.asList("b"));
+
+        //Reading page 0 makes page 1 the least recently used
+        assertEquals("a", cache.get(0));
+        cache.putPage(2, Arrays.asList("c"));
+
+        assertTrue(cache.isLoaded(0));
+        assertFalse(cache.isLoaded(1));
+        assertTrue(cache.isLoaded(2));
+        assertEquals(2, cache.getLoadedPageCount());
+
+        cache.setMaxPages(1);
+        assertFalse(cache.isLoaded(0));
+        assertTrue(cache.isLoaded(2));
+    }
+
+    @Test
+    public void clear_dropsPagesAndLoads() throws Exception {
+        PagedItemCache<String> cache = new PagedItemCache<>(2, 2);
+
+        cache.putPage(0, Arrays.asList("a", "b"));
+        cache.startLoading(1);
+        cache.clear();
+
+        assertEquals(0, cache.getLoadedPageCount());
+        assertFalse(cache.isLoading(1));
+    }
+}
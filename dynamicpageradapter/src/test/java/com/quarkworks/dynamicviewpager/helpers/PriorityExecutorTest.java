@@ -0,0 +1,113 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PriorityExecutorTest {
+
+    private static class RecordingTask extends PriorityExecutor.Task {
+        final String name;
+        final List<String> ran;
+        final CountDownLatch done;
+        boolean dropped = false;
+
+        RecordingTask(String name, List<String> ran, CountDownLatch done) {
+            this.name = name;
+            this.ran = ran;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            ran.add(name);
+            done.countDown();
+        }
+
+        @Override
+        protected void onDropped() {
+            dropped = true;
+        }
+    }
+
+    /**
+     * Occupies the only worker until released, so the tasks after it queue up.
+     */
+    private static class BlockingTask extends PriorityExecutor.Task {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void run() {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Test
+    public void execute_runsLowestPriorityFirst() throws Exception {
+        PriorityExecutor executor = new PriorityExecutor(1);
+        List<String> ran = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch done = new CountDownLatch(4);
+
+        BlockingTask blocker = new BlockingTask();
+        executor.execute(blocker, 0);
+        assertTrue(blocker.started.await(5, TimeUnit.SECONDS));
+
+        executor.execute(new RecordingTask("far", ran, done), 2);
+        executor.execute(new RecordingTask("adjacent", ran, done), 1);
+        executor.execute(new RecordingTask("current", ran, done), 0);
+        executor.execute(new RecordingTask("alsoFar", ran, done), 2);
+        assertEquals(4, executor.getWaitingCount());
+
+        blocker.release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("[current, adjacent, far, alsoFar]", ran.toString());
+    }
+
+    @Test
+    public void reprioritize_reordersAndDrops() throws Exception {
+        PriorityExecutor executor = new PriorityExecutor(1);
+        List<String> ran = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch done = new CountDownLatch(2);
+
+        BlockingTask blocker = new BlockingTask();
+        executor.execute(blocker, 0);
+        assertTrue(blocker.started.await(5, TimeUnit.SECONDS));
+
+        final RecordingTask a = new RecordingTask("a", ran, done);
+        final RecordingTask b = new RecordingTask("b", ran, done);
+        final RecordingTask c = new RecordingTask("c", ran, done);
+        executor.execute(a, 0);
+        executor.execute(b, 1);
+        executor.execute(c, 2);
+
+        //As if the user paged from a to c, leaving a behind
+        executor.reprioritize(new PriorityExecutor.Prioritizer() {
+            @Override
+            public int getPriority(PriorityExecutor.Task task) {
+                if (task == a) {
+                    return PriorityExecutor.DROP;
+                }
+                return task == c ? 0 : 1;
+            }
+        });
+
+        assertTrue(a.dropped);
+        assertEquals(2, executor.getWaitingCount());
+
+        blocker.release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("[c, b]", ran.toString());
+    }
+}
@@ -0,0 +1,76 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SizeBucketedPoolTest {
+
+    private static class RecordingPool extends SizeBucketedPool<String> {
+        final List<String> evicted = new ArrayList<>();
+
+        RecordingPool(int maxSize) {
+            super(maxSize);
+        }
+
+        @Override
+        protected void onEvicted(String item) {
+            evicted.add(item);
+        }
+    }
+
+    @Test
+    public void get_returnsSomethingThatFits() throws Exception {
+        RecordingPool pool = new RecordingPool(1000);
+
+        pool.put("small", 90);
+        pool.put("medium", 130);
+
+        //Same bucket as "medium", but too big for "small"
+        assertEquals("medium", pool.get(100));
+        assertNull(pool.get(100));
+        assertEquals("small", pool.get(90));
+        assertEquals(0, pool.getSize());
+    }
+
+    @Test
+    public void get_doesNotWasteMuchBiggerObjects() throws Exception {
+        RecordingPool pool = new RecordingPool(10000);
+
+        pool.put("huge", 5000);
+
+        assertNull(pool.get(100));
+        assertEquals("huge", pool.get(2000));
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyReleased() throws Exception {
+        RecordingPool pool = new RecordingPool(300);
+
+        pool.put("a", 100);
+        pool.put("b", 200);
+        pool.put("c", 100);
+
+        assertEquals(1, pool.evicted.size());
+        assertEquals("a", pool.evicted.get(0));
+        assertEquals(300, pool.getSize());
+
+        //Too big for the pool at all
+        pool.put("d", 400);
+        assertEquals("d", pool.evicted.get(1));
+
+        pool.clear();
+        assertEquals(4, pool.evicted.size());
+        assertEquals(0, pool.getSize());
+    }
+
+    @Test
+    public void bucketOf_isHighestSetBit() throws Exception {
+        assertEquals(0, SizeBucketedPool.bucketOf(1));
+        assertEquals(6, SizeBucketedPool.bucketOf(127));
+        assertEquals(7, SizeBucketedPool.bucketOf(128));
+    }
+}
@@ -0,0 +1,95 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpringFlingSimulationTest {
+
+    private static final float FRAME_SECONDS = 1.0f / 60.0f;
+
+    /**
+     * @return the number of frames it took to finish.
+     */
+    private static int runToEnd(SpringFlingSimulation simulation) {
+        int frames = 0;
+        while (simulation.step(FRAME_SECONDS)) {
+            frames++;
+            assertTrue("did not settle", frames < 600);
+        }
+        return frames;
+    }
+
+    @Test
+    public void spring_settlesAtTarget() throws Exception {
+        SpringFlingSimulation simulation = new SpringFlingSimulation();
+
+        simulation.startSpring(300, 0, 0);
+        runToEnd(simulation);
+
+        assertFalse(simulation.isRunning());
+        assertEquals(0, simulation.getPosition(), 0);
+        assertEquals(0, simulation.getVelocity(), 0);
+    }
+
+    @Test
+    public void spring_carriesReleaseVelocity() throws Exception {
+        SpringFlingSimulation simulation = new SpringFlingSimulation();
+
+        //Released moving away from the target, so it keeps going for a bit before turning around
+        simulation.startSpring(100, 2000, 0);
+        simulation.step(0.001f);
+
+        assertTrue(simulation.getPosition() > 100);
+        assertEquals(2000, simulation.getVelocity(), 150);
+    }
+
+    @Test
+    public void spring_criticallyDampedDoesNotOvershoot() throws Exception {
+        SpringFlingSimulation simulation = new SpringFlingSimulation();
+        simulation.setSpring(400, 1.0f);
+
+        simulation.startSpring(300, 0, 0);
+        while (simulation.step(FRAME_SECONDS)) {
+            assertTrue(simulation.getPosition() >= 0);
+        }
+    }
+
+    @Test
+    public void fling_keepsFastReleaseVelocity() throws Exception {
+        SpringFlingSimulation simulation = new SpringFlingSimulation();
+
+        simulation.startFling(0, -5000, -2000);
+
+        assertEquals(-5000, simulation.getVelocity(), 0);
+        runToEnd(simulation);
+        assertEquals(-2000, simulation.getPosition(), 0);
+    }
+
+    @Test
+    public void fling_startsAtMinimumVelocityWhenReleasedTheWrongWay() throws Exception {
+        SpringFlingSimulation simulation = new SpringFlingSimulation();
+        simulation.setFling(0, 1500);
+
+        simulation.startFling(0, -300, 2000);
+
+        assertEquals(1500, simulation.getVelocity(), 0);
+        int frames = runToEnd(simulation);
+        assertEquals(2000 / 1500.0f / FRAME_SECONDS, frames, 1);
+    }
+
+    @Test
+    public void restart_reusesState() throws Exception {
+        SpringFlingSimulation simulation = new SpringFlingSimulation();
+
+        simulation.startFling(0, 3000, 1000);
+        simulation.step(FRAME_SECONDS);
+        simulation.cancel();
+        assertFalse(simulation.isRunning());
+
+        simulation.startSpring(simulation.getPosition(), 0, 0);
+        assertTrue(simulation.isRunning());
+        runToEnd(simulation);
+        assertEquals(0, simulation.getPosition(), 0);
+    }
+}
@@ -0,0 +1,141 @@
+package com.quarkworks.dynamicviewpager.helpers;
+
+import org.junit.Test;
+
+import static com.quarkworks.dynamicviewpager.AllocationAssert.assertNoAllocation;
+import static com.quarkworks.dynamicviewpager.helpers.SwipeGestureClassifier.DIRECTION_HORIZONTAL;
+import static com.quarkworks.dynamicviewpager.helpers.SwipeGestureClassifier.DIRECTION_UNDECIDED;
+import static com.quarkworks.dynamicviewpager.helpers.SwipeGestureClassifier.DIRECTION_VERTICAL;
+import static org.junit.Assert.*;
+
+public class SwipeGestureClassifierTest {
+
+    @Test
+    public void verticalDrag_locksVertical() throws Exception {
+        SwipeGestureClassifier classifier = new SwipeGestureClassifier();
+        classifier.setTouchSlop(8);
+
+        int direction = feed(classifier, new float[][] {
+                {100, 500}, {101, 504}, {103, 520}, {140, 530}, {300, 531}
+        });
+
+        //Locked on the move to (103, 520), so drifting sideways later doesn't change it
+        assertEquals(DIRECTION_VERTICAL, direction);
+    }
+
+    @Test
+    public void horizontalDrag_locksHorizontal() throws Exception {
+        SwipeGestureClassifier classifier = new SwipeGestureClassifier();
+        classifier.setTouchSlop(8);
+
+        int direction = feed(classifier, new float[][] {
+                {100, 500}, {120, 502}, {121, 700}
+        });
+
+        assertEquals(DIRECTION_HORIZONTAL, direction);
+    }
+
+    @Test
+    public void movesInsideTouchSlop_stayUndecided() throws Exception {
+        SwipeGestureClassifier classifier = new SwipeGestureClassifier();
+        classifier.setTouchSlop(8);
+
+        int direction = feed(classifier, new float[][] {
+                {100, 500}, {105, 500}, {100, 507}, {95, 495}
+        });
+
+        assertEquals(DIRECTION_UNDECIDED, direction);
+        assertEquals(DIRECTION_VERTICAL, classifier.move(100, 520));
+    }
+
+    @Test
+    public void down_startsNewGesture() throws Exception {
+        SwipeGestureClassifier classifier = new SwipeGestureClassifier();
+
+        assertEquals(DIRECTION_HORIZONTAL, feed(classifier, new float[][] {{0, 0}, {50, 0}}));
+        assertEquals(DIRECTION_VERTICAL, feed(classifier, new float[][] {{0, 0}, {0, -50}}));
+    }
+
+    @Test
+    public void angle_isMeasuredFromVertical() throws Exception {
+        SwipeGestureClassifier classifier = new SwipeGestureClassifier();
+
+        //The default limit is 30 degrees either side of straight up or down
+        assertEquals(DIRECTION_VERTICAL, feed(classifier, atAngle(29)));
+        assertEquals(DIRECTION_HORIZONTAL, feed(classifier, atAngle(31)));
+        assertEquals(DIRECTION_VERTICAL, feed(classifier, atAngle(-29)));
+        assertEquals(DIRECTION_HORIZONTAL, feed(classifier, atAngle(-31)));
+
+        classifier.setMaxAngle(45);
+        assertEquals(DIRECTION_VERTICAL, feed(classifier, atAngle(44)));
+        assertEquals(DIRECTION_HORIZONTAL, feed(classifier, atAngle(46)));
+    }
+
+    @Test
+    public void verticalFling_needsSpeedAndAngle() throws Exception {
+        SwipeGestureClassifier classifier = new SwipeGestureClassifier();
+
+        assertTrue(classifier.isVerticalFling(100, -2000));
+        assertFalse(classifier.isVerticalFling(2000, 2000));
+        assertFalse(classifier.isVerticalFling(0, 400));
+
+        classifier.setMinFlingVelocity(300);
+        assertTrue(classifier.isVerticalFling(0, 400));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setMaxAngle_rejectsRightAngle() throws Exception {
+        new SwipeGestureClassifier().setMaxAngle(90);
+    }
+
+    @Test
+    public void move_doesNotAllocate() throws Exception {
+        final SwipeGestureClassifier classifier = new SwipeGestureClassifier();
+        classifier.setTouchSlop(8);
+
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 10000; i++) {
+                    churn(classifier, i);
+                }
+            }
+        });
+    }
+
+    /**
+     * A gesture at 120 Hz: a down, then a move every 8 ms, then a fling check on release.
+     */
+    private static void churn(SwipeGestureClassifier classifier, int seed) {
+        classifier.down(seed % 500, 1000);
+        for (int i = 1; i <= 12; i++) {
+            classifier.move(seed % 500 + (seed % 7) * i, 1000 - 6 * i);
+        }
+        classifier.isVerticalFling(seed % 300, -1500);
+    }
+
+    /**
+     * Plays a stream of touch samples, the first being the down event and the rest moves.
+     *
+     * @return the direction after the last move.
+     */
+    private static int feed(SwipeGestureClassifier classifier, float[][] samples) {
+        classifier.down(samples[0][0], samples[0][1]);
+
+        int direction = DIRECTION_UNDECIDED;
+        for (int i = 1; i < samples.length; i++) {
+            direction = classifier.move(samples[i][0], samples[i][1]);
+        }
+        return direction;
+    }
+
+    /**
+     * @return a down and a single 100px move at the angle given, in degrees from straight down.
+     */
+    private static float[][] atAngle(double degrees) {
+        double radians = Math.toRadians(degrees);
+        return new float[][] {
+                {0, 0}, {(float) (100 * Math.sin(radians)), (float) (100 * Math.cos(radians))}
+        };
+    }
+}